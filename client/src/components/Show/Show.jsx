@@ -3,7 +3,7 @@ import { useEffect, useRef, useState } from 'react';
 import { useParams } from 'react-router';
 
 import { fetchKitsuTitleSearch } from '@/services/KitsuAnimeSearchService';
-import { searchForShow } from '@/services/ShowSearchService';
+import { fetchAllEpisodes, searchForShow } from '@/services/ShowSearchService';
 import { getMyAnimeListSearchUrl } from '@/services/Urls';
 import { useStorage } from '@/utils/Hooks';
 import { debounce } from '@/utils/Events';
@@ -15,6 +15,8 @@ import Anchor from '@/components/ui/Anchor';
 import ErrorDisplay from '@/components/ui/ErrorDisplay';
 
 
+const sortEpisodesByTitleInAscendingOrder = (show1, show2) => asNumber(show1.title) - asNumber(show2.title);
+
 function Show() {
     const routeParams = useParams();
     const title = decodeURIComponent(routeParams.title);
@@ -28,6 +30,7 @@ function Show() {
     const [ selectedEpisode, setSelectedEpisode ] = useState(null);
     const [ showsProgress, setShowsProgress ] = useStorage('showsProgress', { initialValue: {}});
     const episodesTitleRef = useRef();
+    const episodeFetchesInFlightRef = useRef(new Set());
 
     async function fetchKitsuInfo() {
         const response = await fetchKitsuTitleSearch(title.toLowerCase());
@@ -53,8 +56,6 @@ function Show() {
             }
 
             if (episodeResults.results != null && episodeResults.results.length >= 0) {
-                const sortEpisodesByTitleInAscendingOrder = (show1, show2) => asNumber(show1.title) - asNumber(show2.title);
-
                 episodeResults.results.forEach(show => {
                     show.episodes.sort(sortEpisodesByTitleInAscendingOrder);
                 });
@@ -67,6 +68,43 @@ function Show() {
         }
     }
 
+    async function fetchAllEpisodesForShow(showIndex) {
+        const show = episodeResults.results[showIndex];
+
+        // Only each provider's top shows come with their episodes (`episodeCount` is null for the rest)
+        if (show.episodeCount != null && show.episodes.length >= show.episodeCount) {
+            return;
+        }
+
+        // Clicking a show again while its episodes are loading shouldn't start another page-fetching loop
+        if (episodeFetchesInFlightRef.current.has(show.url)) {
+            return;
+        }
+
+        episodeFetchesInFlightRef.current.add(show.url);
+
+        try {
+            const episodes = await fetchAllEpisodes(show.url);
+
+            episodes.sort(sortEpisodesByTitleInAscendingOrder);
+
+            setEpisodeResults(prevState => {
+                const results = [ ...prevState.results ];
+                results[showIndex] = {
+                    ...results[showIndex],
+                    episodes,
+                    episodeCount: episodes.length,
+                };
+
+                return { ...prevState, results };
+            });
+        } catch (e) {
+            console.error(`Error fetching episodes for show (${show.title}):`, e);
+        } finally {
+            episodeFetchesInFlightRef.current.delete(show.url);
+        }
+    }
+
     useEffect(() => {
         fetchKitsuInfo();
         fetchShowAndEpisodesList();
@@ -130,6 +168,7 @@ function Show() {
         const episodeElementId = getIdForSelectableElement(showIndex, episodeTitle);
 
         setSelectedShow(showIndex);
+        fetchAllEpisodesForShow(showIndex);
         scrollShowIntoView(showElementId);
         scrollEpisodeIntoView(episodeElementId);
     }
@@ -156,11 +195,11 @@ function Show() {
     };
 
     const renderPossibleShowMatches = () => {
-        return episodeResults.results.map(({ title: showTitle, episodes: showEpisodes }, i) => {
+        return episodeResults.results.map(({ title: showTitle, episodeCount: showEpisodeCount }, i) => {
             const renderedEpisodeCountBadge = (
                 <h4>
                     <span className={`ml-1 badge badge-pill badge-${selectedShow === i ? 'dark' : 'primary'}`}>
-                        {showEpisodes.length}
+                        {showEpisodeCount ?? '?'}
                     </span>
                 </h4>
             );
@@ -173,6 +212,7 @@ function Show() {
                     key={i}
                     onClick={() => {
                         setSelectedShow(i);
+                        fetchAllEpisodesForShow(i);
 
                         if (episodesTitleRef.current) {
                             episodesTitleRef.current.scrollIntoView({ block: 'start', inline: 'center' });
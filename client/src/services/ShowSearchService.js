@@ -1,4 +1,4 @@
-import { SHOW_SEARCH_URL } from '@/services/Urls';
+import { EPISODES_URL, SHOW_SEARCH_URL } from '@/services/Urls';
 
 export async function searchForShow(title) {
     return await fetch(SHOW_SEARCH_URL, {
@@ -11,3 +11,35 @@ export async function searchForShow(title) {
         }),
     }).then(res => res.json());
 }
+
+/**
+ * Search results only include episodes for each provider's top shows,
+ * so fetch the rest of a show's episodes page by page.
+ */
+export async function fetchAllEpisodes(showUrl) {
+    const episodes = [];
+    let episodeCount = Infinity;
+
+    while (episodes.length < episodeCount) {
+        const searchParams = new URLSearchParams({
+            show: showUrl,
+            offset: episodes.length,
+        });
+        const res = await fetch(`${EPISODES_URL}?${searchParams}`);
+
+        if (!res.ok) {
+            throw `Got HTTP status code ${res.status} from server while fetching episodes for (${showUrl}).`;
+        }
+
+        const page = await res.json();
+
+        if (!page.episodes.length) {
+            break;
+        }
+
+        episodes.push(...page.episodes);
+        episodeCount = page.episodeCount;
+    }
+
+    return episodes;
+}
@@ -10,6 +10,7 @@ export const getMyAnimeListSearchUrl = searchText => getSearchUrl(myAnimeListSea
 
 export const SHOW_SEARCH_URL = '/searchAnime';
 export const EPISODE_HOST_SEARCH_URL = '/getVideosForEpisode';
+export const EPISODES_URL = '/episodes';
 export const VIDEO_BASE_PATH = '/video';
 export const IMAGE_BASE_PATH = '/image';
 export const CORS_PROXY_URL = '/corsProxy?url=';
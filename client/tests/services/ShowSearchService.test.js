@@ -0,0 +1,79 @@
+import { fetchAllEpisodes } from '@/services/ShowSearchService';
+import { EPISODES_URL } from '@/services/Urls';
+
+const showUrl = 'https://example.com/anime/kimi-no-na-wa';
+const allEpisodes = [ 1, 2, 3, 4, 5 ].map(episodeNumber => ({
+    title: `${episodeNumber}`,
+    url: `${showUrl}/ep-${episodeNumber}`,
+}));
+
+function mockEpisodesResponse({ ok = true, status = 200, pageSize = 2 } = {}) {
+    return jest.spyOn(global, 'fetch').mockImplementation(async url => {
+        const searchParams = new URLSearchParams(url.split('?')[1]);
+        const offset = Number(searchParams.get('offset'));
+
+        return {
+            ok,
+            status,
+            json: async () => ({
+                url: searchParams.get('show'),
+                episodes: allEpisodes.slice(offset, offset + pageSize),
+                offset,
+                episodeCount: allEpisodes.length,
+            }),
+        };
+    });
+}
+
+describe('Services', () => {
+    describe('Show search service', () => {
+        let mockFetch;
+
+        afterEach(() => {
+            mockFetch.mockRestore();
+        });
+
+        it('should fetch every page of a show\'s episodes', async () => {
+            mockFetch = mockEpisodesResponse();
+
+            const episodes = await fetchAllEpisodes(showUrl);
+
+            expect(episodes).toEqual(allEpisodes);
+            expect(mockFetch).toHaveBeenCalledTimes(3);
+            expect(mockFetch.mock.calls.map(([ url ]) => new URLSearchParams(url.split('?')[1]).get('offset')))
+                .toEqual([ '0', '2', '4' ]);
+            mockFetch.mock.calls.forEach(([ url ]) => {
+                expect(url.startsWith(`${EPISODES_URL}?`)).toBe(true);
+                expect(new URLSearchParams(url.split('?')[1]).get('show')).toEqual(showUrl);
+            });
+        });
+
+        it('should stop fetching once a page is empty', async () => {
+            // Show has fewer episodes than it claimed, e.g. the provider's list changed between pages
+            mockFetch = jest.spyOn(global, 'fetch').mockImplementation(async url => {
+                const offset = Number(new URLSearchParams(url.split('?')[1]).get('offset'));
+
+                return {
+                    ok: true,
+                    status: 200,
+                    json: async () => ({
+                        episodes: offset === 0 ? allEpisodes.slice(0, 2) : [],
+                        offset,
+                        episodeCount: 10,
+                    }),
+                };
+            });
+
+            const episodes = await fetchAllEpisodes(showUrl);
+
+            expect(episodes).toEqual(allEpisodes.slice(0, 2));
+            expect(mockFetch).toHaveBeenCalledTimes(2);
+        });
+
+        it('should throw if the server responds with an error', async () => {
+            mockFetch = mockEpisodesResponse({ ok: false, status: 404 });
+
+            await expect(fetchAllEpisodes(showUrl)).rejects.toContain('404');
+        });
+    });
+});
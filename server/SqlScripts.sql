@@ -3,3 +3,13 @@ CREATE TABLE IF NOT EXISTS captcha_answers (
     image_hash VARCHAR(200) NOT NULL,
     PRIMARY KEY (prompt, image_hash)
 );
+
+CREATE TABLE IF NOT EXISTS cache_entries (
+    cache_name VARCHAR(64) NOT NULL,
+    cache_key VARCHAR(1024) NOT NULL,
+    cached_value BLOB,
+    expires_at BIGINT NOT NULL,
+    PRIMARY KEY (cache_name, cache_key)
+);
+
+CREATE INDEX IF NOT EXISTS cache_entries_expires_at ON cache_entries (expires_at);
@@ -1,28 +1,37 @@
 package org.animeatsume;
 
 import lombok.extern.log4j.Log4j2;
-import org.animeatsume.controller.FourAnimeController;
+import org.animeatsume.controller.EpisodePrefetcher;
 import org.animeatsume.controller.KissanimeRuController;
-import org.animeatsume.controller.NineAnimeController;
-import org.animeatsume.controller.ZoroToController;
+import org.animeatsume.controller.ProviderRegistry;
+import org.animeatsume.controller.ProvidersController;
+import org.animeatsume.model.Anchor;
+import org.animeatsume.model.EpisodesPage;
 import org.animeatsume.model.SearchAnimeResponse;
 import org.animeatsume.model.TitleSearchRequest;
 import org.animeatsume.model.TitlesAndEpisodes;
 import org.animeatsume.model.kissanime.KissanimeVideoHostRequest;
 import org.animeatsume.model.kissanime.NovelPlanetUrlRequest;
 import org.animeatsume.service.NovelPlanetService;
+import org.animeatsume.utils.Deadline;
+import org.animeatsume.utils.SingleFlight;
 import org.animeatsume.utils.http.CorsProxy;
 import org.animeatsume.utils.regex.RegexUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @CrossOrigin
@@ -33,20 +42,35 @@ public class ApplicationApi {
     KissanimeRuController kissanimeRuController;
 
     @Autowired
-    FourAnimeController fourAnimeController;
+    NovelPlanetService novelPlanetService;
 
     @Autowired
-    NovelPlanetService novelPlanetService;
+    ProvidersController providersController;
 
     @Autowired
-    NineAnimeController nineAnimeController;
+    ProviderRegistry providerRegistry;
 
     @Autowired
-    ZoroToController zoroToController;
+    EpisodePrefetcher episodePrefetcher;
 
     @Value("${org.animeatsume.activate-kissanime}")
     Boolean activateKissanime;
 
+    @Value("${org.animeatsume.search.time-budget}")
+    Duration searchTimeBudget;
+
+    @Value("${org.animeatsume.video.time-budget}")
+    Duration videoTimeBudget;
+
+    @Value("${org.animeatsume.search.episodes-page-size}")
+    int episodesPageSize;
+
+    // `@Cacheable` doesn't lock while the value is being computed (and `sync = true` doesn't support `unless`),
+    // so identical requests arriving before the first one finishes share its upstream calls instead.
+    private final SingleFlight<String, ResponseEntity<SearchAnimeResponse>> searchesInFlight = new SingleFlight<>();
+    private final SingleFlight<String, ResponseEntity<Object>> videoSearchesInFlight = new SingleFlight<>();
+    private final SingleFlight<String, TitlesAndEpisodes.EpisodesForTitle> episodeListsInFlight = new SingleFlight<>();
+
     @GetMapping(value = "/corsProxy", consumes = MediaType.ALL_VALUE)
     public ResponseEntity<?> getCorsRequest(
         @RequestParam("url") URI url,
@@ -86,13 +110,6 @@ public class ApplicationApi {
         return CorsProxy.doCorsRequest(method, url, origin, body, requestHeaders);
     }
 
-    // Like most annotations, for `@Cacheable`, we can only use either a `static final` var (from another class)
-    // or use the .properties var key directly (without the "proxy" of another class).
-    // However, we can't use the .properties key to reduce duplicated code (so we don't have to repeat the .properties
-    // var in source code), so we must duplicate the code here unfortunately.
-    // See:
-    //  - https://stackoverflow.com/questions/39013894/reading-from-application-properties-attribute-value-must-be-constant/39013994#39013994
-    @Cacheable(cacheNames = ApplicationConfig.ANIME_TITLE_SEARCH_CACHE_NAME)
     @PostMapping(value = "/searchAnime", consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.TEXT_PLAIN_VALUE })
     public ResponseEntity<SearchAnimeResponse> searchAnime(@RequestBody TitleSearchRequest titleSearchRequest) {
         titleSearchRequest.setTitle(RegexUtils.removeNonAlphanumericChars(titleSearchRequest.getTitle()));
@@ -102,26 +119,19 @@ public class ApplicationApi {
                 .ok((SearchAnimeResponse) kissanimeRuController.searchShows(titleSearchRequest));
         }
 
-        SearchAnimeResponse searchResults = null; // (SearchAnimeResponse) fourAnimeController.searchTitle(titleSearchRequest);
-
-        if (searchResults == null || searchResults.getResults().size() == 0) {
-            TitlesAndEpisodes searchResultsObj = nineAnimeController.searchShows(titleSearchRequest);
-
-            if (searchResultsObj != null && !searchResultsObj.getResults().isEmpty()) {
-                searchResults = new SearchAnimeResponse(searchResultsObj.getResults());
-            }
-        }
-
-        if (searchResults == null || searchResults.getResults().isEmpty()) {
-            TitlesAndEpisodes searchResultsObj = zoroToController.searchShows(titleSearchRequest);
+        return searchesInFlight.run(
+            titleSearchRequest.getTitle().toLowerCase(),
+            () -> searchAllProviders(titleSearchRequest)
+        );
+    }
 
-            if (searchResultsObj != null && !searchResultsObj.getResults().isEmpty()) {
-                searchResults = new SearchAnimeResponse(searchResultsObj.getResults());
-            }
-        }
+    private ResponseEntity<SearchAnimeResponse> searchAllProviders(TitleSearchRequest titleSearchRequest) {
+        Deadline deadline = Deadline.after(searchTimeBudget);
+        SearchAnimeResponse searchResults = Deadline.runWith(deadline, () -> providersController.searchShows(titleSearchRequest));
 
         if (searchResults == null || searchResults.getResults().size() == 0) {
             searchResults = new SearchAnimeResponse("Anime servers are currently down :/");
+            searchResults.setIncomplete(deadline.isExpired());
         }
 
         if (!searchResults.getError().isEmpty()) {
@@ -130,34 +140,135 @@ public class ApplicationApi {
                 .body(searchResults);
         }
 
+        prefetchTopSearchResult(searchResults);
+
         return ResponseEntity
             .ok(searchResults);
     }
 
-    @PostMapping(value = "/getVideosForEpisode")
-    public ResponseEntity<Object> getVideosForEpisode(@RequestBody KissanimeVideoHostRequest kissanimeEpisodeRequest) {
-        TitlesAndEpisodes.EpisodesForTitle videosForEpisode = null;
+    private void prefetchTopSearchResult(SearchAnimeResponse searchResults) {
+        List<TitlesAndEpisodes.EpisodesForTitle> shows = searchResults.getResults().stream()
+            .map(show -> (TitlesAndEpisodes.EpisodesForTitle) show)
+            .collect(Collectors.toList());
 
-        if (activateKissanime) {
-            videosForEpisode = kissanimeRuController.getVideosForEpisode(kissanimeEpisodeRequest);
-        }
+        shows.forEach(episodePrefetcher::trackEpisodes);
+        episodePrefetcher.prefetchFirstEpisode(shows.get(0), this::prefetchVideosForEpisode);
+    }
+
+    // GET rather than POST so the browser's `EventSource` can consume it.
+    @GetMapping(value = "/searchAnime/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter searchAnimeStream(@RequestParam("title") String title) {
+        TitleSearchRequest titleSearchRequest = new TitleSearchRequest();
+        titleSearchRequest.setTitle(RegexUtils.removeNonAlphanumericChars(title));
+
+        return providersController.streamShows(titleSearchRequest);
+    }
 
-        if (videosForEpisode == null || videosForEpisode.getEpisodes().size() == 0) {
-            videosForEpisode = fourAnimeController.getVideosForEpisode(kissanimeEpisodeRequest.getEpisodeUrl());
+    /**
+     * Pages through a show's episode list.
+     * Search results only include episodes for each provider's top shows, so the client fetches the rest from here.
+     */
+    @GetMapping("/episodes")
+    public ResponseEntity<EpisodesPage> getEpisodes(
+        @RequestParam("show") String showUrl,
+        @RequestParam(value = "offset", defaultValue = "0") int offset,
+        @RequestParam(value = "limit", required = false) Integer limit
+    ) {
+        int pageSize = limit == null ? episodesPageSize : Math.min(limit, episodesPageSize);
+
+        if (offset < 0 || pageSize <= 0) {
+            return ResponseEntity
+                .badRequest()
+                .build();
         }
 
-        if (videosForEpisode == null || videosForEpisode.getEpisodes().size() == 0) {
-            videosForEpisode = nineAnimeController.getVideosForEpisode(kissanimeEpisodeRequest.getEpisodeUrl());
+        if (providerRegistry.getProviderNameForUrl(showUrl) == null) {
+            return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .build();
         }
 
-        if (videosForEpisode == null || videosForEpisode.getEpisodes().size() == 0) {
-            videosForEpisode = zoroToController.getVideosForEpisode(kissanimeEpisodeRequest.getEpisodeUrl());
+        Deadline deadline = Deadline.after(searchTimeBudget);
+        TitlesAndEpisodes.EpisodesForTitle show = episodeListsInFlight.run(
+            showUrl,
+            () -> Deadline.runWith(deadline, () -> providersController.getEpisodes(showUrl))
+        );
+
+        if (show == null) {
+            return ResponseEntity
+                .status(deadline.isExpired() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.NOT_FOUND)
+                .build();
         }
 
+        episodePrefetcher.trackEpisodes(show);
+
+        List<? extends Anchor> episodes = show.getEpisodes();
+        int pageStart = Math.min(offset, episodes.size());
+        int pageEnd = Math.min(pageStart + pageSize, episodes.size());
+
+        return ResponseEntity
+            .ok(new EpisodesPage(
+                show.getUrl(),
+                show.getTitle(),
+                episodes.size(),
+                offset,
+                pageSize,
+                new ArrayList<>(episodes.subList(pageStart, pageEnd))
+            ));
+    }
+
+    @PostMapping(value = "/getVideosForEpisode")
+    public ResponseEntity<Object> getVideosForEpisode(@RequestBody KissanimeVideoHostRequest kissanimeEpisodeRequest) {
+        ResponseEntity<Object> videosForEpisode = videoSearchesInFlight.run(
+            String.valueOf(kissanimeEpisodeRequest.getEpisodeUrl()),
+            () -> findVideosForEpisode(kissanimeEpisodeRequest)
+        );
+
+        // Started after this episode is resolved so the next one doesn't compete with it
+        episodePrefetcher.prefetchEpisodesAfter(kissanimeEpisodeRequest.getEpisodeUrl(), this::prefetchVideosForEpisode);
+
+        return videosForEpisode;
+    }
+
+    // Goes through the same path as user requests so the result is cached and concurrent requests share it
+    private void prefetchVideosForEpisode(String episodeUrl) {
+        videoSearchesInFlight.run(
+            episodeUrl,
+            () -> findVideosForEpisode(new KissanimeVideoHostRequest(episodeUrl, null))
+        );
+    }
+
+    private ResponseEntity<Object> findVideosForEpisode(KissanimeVideoHostRequest kissanimeEpisodeRequest) {
+        Deadline deadline = Deadline.after(videoTimeBudget);
+        TitlesAndEpisodes.EpisodesForTitle videosForEpisode = Deadline.runWith(deadline, () -> {
+            TitlesAndEpisodes.EpisodesForTitle videos = null;
+
+            String owningProviderName = providerRegistry.getProviderNameForUrl(kissanimeEpisodeRequest.getEpisodeUrl());
+            // Kissanime is only worth trying for its own URLs or ones no provider claims
+            boolean mayBeKissanimeUrl = owningProviderName == null
+                || providerRegistry.getProvider(owningProviderName) == kissanimeRuController;
+
+            if (activateKissanime && mayBeKissanimeUrl) {
+                videos = kissanimeRuController.getVideosForEpisode(kissanimeEpisodeRequest);
+            }
+
+            if (videos == null || videos.getEpisodes().size() == 0) {
+                videos = providersController.getVideosForEpisode(kissanimeEpisodeRequest.getEpisodeUrl());
+            }
+
+            return videos;
+        });
+
         if (videosForEpisode != null && videosForEpisode.getEpisodes().size() > 0) {
             return ResponseEntity.ok(videosForEpisode);
         }
 
+        if (deadline.isExpired()) {
+            return ResponseEntity
+                .status(HttpStatus.GATEWAY_TIMEOUT)
+                .build();
+        }
+
         return ResponseEntity
             .status(HttpStatus.NOT_FOUND)
             .build();
@@ -177,7 +288,9 @@ public class ApplicationApi {
         @PathVariable("episode") String episodeName,
         @PathVariable("quality") String videoQuality,
         @RequestParam("url") String videoUrl,
-        @RequestHeader HttpHeaders requestHeaders
+        @RequestHeader HttpHeaders requestHeaders,
+        HttpServletRequest request,
+        HttpServletResponse response
     ) {
         String validCharactersRegex = "^[a-zA-Z0-9-]+$"; // alphanumeric and '-'
         boolean paramsAreValid = (
@@ -204,11 +317,18 @@ public class ApplicationApi {
                 episodeName,
                 videoQuality,
                 videoUrl,
-                requestHeaders
+                requestHeaders,
+                request,
+                response
             );
         } catch (Exception e) {
             log.error("Could not proxy video stream. Error: {}", e.getMessage());
 
+            if (response.isCommitted()) {
+                // e.g. the client closed the connection while a video file was being written to it
+                return null;
+            }
+
             return ResponseEntity
                 .status(HttpStatus.NOT_FOUND)
                 .build();
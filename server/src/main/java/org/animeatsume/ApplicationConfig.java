@@ -1,28 +1,37 @@
 package org.animeatsume;
 
 import lombok.extern.log4j.Log4j2;
+import org.animeatsume.utils.Deadline;
+import org.animeatsume.utils.VirtualThreads;
+import org.animeatsume.utils.cache.BoundedCacheManager;
+import org.animeatsume.utils.cache.CacheSpec;
+import org.animeatsume.utils.cache.PersistentCacheStore;
+import org.animeatsume.utils.http.HttpClientSpec;
+import org.animeatsume.utils.http.PooledHttpClient;
+import org.animeatsume.utils.http.PooledWebClient;
+import org.animeatsume.utils.http.RequestLimiter;
 import org.apache.catalina.connector.Connector;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.servlet.server.ServletWebServerFactory;
-import org.springframework.cache.Cache;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.PropertySource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import jakarta.annotation.PostConstruct;
 import javax.annotation.Nullable;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -32,6 +41,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Log4j2
 @Configuration
@@ -39,8 +50,10 @@ import java.util.concurrent.Executor;
 @EnableCaching
 @EnableScheduling
 public class ApplicationConfig {
-    private static final long WEEK_IN_MILLISECONDS = 1000 * 60 * 60 * 24 * 7;
-    private static final long ANIME_TITLE_SEARCH_CACHE_CLEAR_INTERVAL = WEEK_IN_MILLISECONDS;
+    public static final String SHOW_SEARCH_EXECUTOR_NAME = "showSearchExecutor";
+    public static final String PREFETCH_EXECUTOR_NAME = "prefetchExecutor";
+    public static final String READ_AHEAD_EXECUTOR_NAME = "readAheadExecutor";
+    public static final String CACHE_REFRESH_EXECUTOR_NAME = "cacheRefreshExecutor";
 
     @Value("${server.http.port}")
     private int SERVER_HTTP_PORT;
@@ -51,6 +64,15 @@ public class ApplicationConfig {
     @Value("${org.animeatsume.cache.anime-title-search}")
     public static final String ANIME_TITLE_SEARCH_CACHE_NAME = "animeTitleSearch";
 
+    @Value("${org.animeatsume.cache.episode-videos}")
+    public static final String EPISODE_VIDEOS_CACHE_NAME = "episodeVideos";
+
+    @Value("${org.animeatsume.cache.show-episodes}")
+    public static final String SHOW_EPISODES_CACHE_NAME = "showEpisodes";
+
+    @Value("${org.animeatsume.cache.video-source-metadata}")
+    public static final String VIDEO_SOURCE_METADATA_CACHE_NAME = "videoSourceMetadata";
+
     @Value("${print.env}")
     private static Boolean logEnvVars;
 
@@ -72,24 +94,171 @@ public class ApplicationConfig {
     }
 
 
+    // `Requests`, `CorsProxy`, etc. are static utils, so the HTTP client they share is configured statically too.
+    // Host-specific overrides use brackets since hostnames contain dots, e.g. `org.animeatsume.http.hosts[zoro.to].read-timeout`.
+    @PostConstruct
+    public void configureHttpClient() {
+        HttpClientSpec httpClientSpec = Binder.get(env)
+            .bind("org.animeatsume.http", HttpClientSpec.class)
+            .orElseGet(HttpClientSpec::new);
+
+        PooledHttpClient.configure(httpClientSpec);
+        PooledWebClient.configure(httpClientSpec);
+        RequestLimiter.configure(httpClientSpec);
+    }
+
+
     @Bean
     public Executor taskExecutor(
         @Value("${spring.task.execution.pool.core-size}") int corePoolSize,
         @Value("${spring.task.execution.pool.max-size}") int maxPoolSize,
         @Value("${spring.task.execution.pool.queue-capacity}") int queueCapacity,
-        @Value("${spring.task.execution.thread-name-prefix}") String threadNamePrefix
+        @Value("${spring.task.execution.thread-name-prefix}") String threadNamePrefix,
+        @Value("${org.animeatsume.virtual-threads.enabled}") boolean virtualThreadsEnabled
     ) {
+        SimpleAsyncTaskExecutor virtualThreadExecutor = newVirtualThreadExecutor(virtualThreadsEnabled, threadNamePrefix);
+
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.setTaskDecorator(Deadline::propagate);
+
+            return virtualThreadExecutor;
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
         executor.setCorePoolSize(corePoolSize);
         executor.setMaxPoolSize(maxPoolSize);
         executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setTaskDecorator(Deadline::propagate);
         executor.initialize();
 
         return executor;
     }
 
+    // Provider-level searches block until their own `@Async` episode searches finish, so they get
+    // their own pool to avoid starving `taskExecutor` of the threads those episode searches need.
+    // `@Async` still defaults to `taskExecutor` since it's resolved by name when multiple executors exist.
+    @Bean(name = SHOW_SEARCH_EXECUTOR_NAME)
+    public Executor showSearchExecutor(
+        @Value("${org.animeatsume.search.pool.size}") int poolSize,
+        @Value("${org.animeatsume.search.pool.queue-capacity}") int queueCapacity,
+        @Value("${spring.task.execution.thread-name-prefix}") String threadNamePrefix,
+        @Value("${org.animeatsume.virtual-threads.enabled}") boolean virtualThreadsEnabled
+    ) {
+        SimpleAsyncTaskExecutor virtualThreadExecutor = newVirtualThreadExecutor(virtualThreadsEnabled, threadNamePrefix + "search-");
+
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.setTaskDecorator(Deadline::propagate);
+
+            return virtualThreadExecutor;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix + "search-");
+        executor.setTaskDecorator(Deadline::propagate);
+        executor.initialize();
+
+        return executor;
+    }
+
+    // Speculative work (e.g. resolving the next episode's videos) runs on a small pool of low-priority
+    // platform threads regardless of `virtual-threads.enabled` so it can't crowd out user requests.
+    // Tasks don't inherit the submitter's `Deadline` since they outlive its request.
+    // Tasks are rejected (rather than silently dropped) when the queue is full so that submitters can clean up after them.
+    @Bean(name = PREFETCH_EXECUTOR_NAME)
+    public Executor prefetchExecutor(
+        @Value("${org.animeatsume.video.prefetch.pool.size}") int poolSize,
+        @Value("${org.animeatsume.video.prefetch.pool.queue-capacity}") int queueCapacity,
+        @Value("${spring.task.execution.thread-name-prefix}") String threadNamePrefix
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix + "prefetch-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    // Reading ahead in video streams gets its own low-priority pool so that slow episode scrapes queued for prefetching
+    // don't delay chunks that a playing video needs within seconds (and vice versa).
+    // Tasks are dropped when the queue is full, which bounds how much is read ahead at once.
+    @Bean(name = READ_AHEAD_EXECUTOR_NAME)
+    public Executor readAheadExecutor(
+        @Value("${org.animeatsume.video.read-ahead.pool.size}") int poolSize,
+        @Value("${org.animeatsume.video.read-ahead.pool.queue-capacity}") int queueCapacity,
+        @Value("${spring.task.execution.thread-name-prefix}") String threadNamePrefix
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix + "read-ahead-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    // Cache refreshes re-run full searches (blocking for up to the search time budget), so they get a small pool of
+    // low-priority threads rather than competing with user requests for `taskExecutor`. Only refreshes run here;
+    // Caffeine's own maintenance (eviction, etc.) stays on its default executor.
+    // Refreshes are rejected (rather than silently dropped) when the queue is full so that the cache knows the refresh
+    // didn't start and retries it on the entry's next read.
+    @Bean(name = CACHE_REFRESH_EXECUTOR_NAME)
+    public Executor cacheRefreshExecutor(
+        @Value("${org.animeatsume.cache.refresh.pool.size}") int poolSize,
+        @Value("${org.animeatsume.cache.refresh.pool.queue-capacity}") int queueCapacity,
+        @Value("${spring.task.execution.thread-name-prefix}") String threadNamePrefix
+    ) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix + "cache-refresh-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+
+    /**
+     * Unbounded executor running each task on its own virtual thread, or null if virtual threads are
+     * disabled or unsupported by the running JVM (in which case callers keep using their platform-thread pools).
+     *
+     * Nearly all tasks are blocking scrapes of anime sites, so they park cheaply on virtual threads rather
+     * than exhausting a fixed pool and being rejected under load.
+     */
+    private static SimpleAsyncTaskExecutor newVirtualThreadExecutor(boolean virtualThreadsEnabled, String threadNamePrefix) {
+        if (!virtualThreadsEnabled) {
+            return null;
+        }
+
+        ThreadFactory virtualThreadFactory = VirtualThreads.newThreadFactory(threadNamePrefix);
+
+        if (virtualThreadFactory == null) {
+            log.warn("Virtual threads are enabled but not supported by this JVM (Java {}). Using platform thread pools instead.", Runtime.version());
+
+            return null;
+        }
+
+        return new SimpleAsyncTaskExecutor(virtualThreadFactory);
+    }
+
 
     /**
      * @see <a href="https://stackoverflow.com/questions/30896234/how-set-up-spring-boot-to-run-https-http-ports/52648698#52648698">Correct Spring Boot v2 answer</a>
@@ -103,13 +272,24 @@ public class ApplicationConfig {
      * @see <a href="https://stackoverflow.com/questions/19613562/how-can-i-specify-my-keystore-file-with-spring-boot-and-tomcat">Attempt: Trying to dynamically toggle .properties `server.ssl.key-store` based on existence</a>
      */
     @Bean
-    public ServletWebServerFactory servletContainer() {
+    public ServletWebServerFactory servletContainer(
+        @Value("${spring.task.execution.thread-name-prefix}") String threadNamePrefix,
+        @Value("${org.animeatsume.virtual-threads.enabled}") boolean virtualThreadsEnabled
+    ) {
         Connector connector = new Connector(TomcatServletWebServerFactory.DEFAULT_PROTOCOL);
         connector.setPort(SERVER_HTTP_PORT);
 
         TomcatServletWebServerFactory tomcat = new TomcatServletWebServerFactory();
         tomcat.addAdditionalTomcatConnectors(connector);
 
+        Executor requestHandlerExecutor = newVirtualThreadExecutor(virtualThreadsEnabled, threadNamePrefix + "http-");
+
+        if (requestHandlerExecutor != null) {
+            // Protocol handler customizers only apply to the main (HTTPS) connector, so set the additional one directly
+            tomcat.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(requestHandlerExecutor));
+            connector.getProtocolHandler().setExecutor(requestHandlerExecutor);
+        }
+
         return tomcat;
     }
 
@@ -118,57 +298,24 @@ public class ApplicationConfig {
     // and the only way to do that when mixing with the CacheManager is via manual `@Bean` method.
     // See:
     //  - https://www.javadevjournal.com/spring-boot/3-ways-to-configure-multiple-cache-managers-in-spring-boot/
+    //
+    // Entries are bounded by size and expire individually (with jittered TTLs) rather than the whole cache
+    // being cleared on a schedule, which both let the heap grow unbounded between clears and caused every
+    // popular search to hit the providers at the same time right after each clear.
+    // Specs are read via `Binder` since `@Value` can't bind a map of objects keyed by cache name.
     @Bean
-    public CacheManager cacheManager(@Value("${org.animeatsume.cache.cache-names}") String[] cacheNames) {
-        log.info("Caching activated for cache names: {}", (Object[]) cacheNames);
-
-        return new ConcurrentMapCacheManager(cacheNames);
-    }
-
-    public CacheManager cacheManager() {
-        return cacheManager(null);
-    }
-
-    // Cannot use runtime vars like those populated by `@Value()` inside `@CacheEvict` annotation
-    // nor `@Scheduled` annotations b/c the string reference inside via `CacheManager` constructor
-    // call will technically be null.
-    // We also can't use the key from .properties to get the value like we can in `@Cacheable`.
-    // Thus, manually clear the cache via `CacheManager`.
-    //@CacheEvict(allEntries = true, value = "${org.animeatsume.cache.anime-title-search}")
-    @Scheduled(fixedDelay = ANIME_TITLE_SEARCH_CACHE_CLEAR_INTERVAL)
-    public void clearSearchAnimeTitleCache() {
-        clearCache(ANIME_TITLE_SEARCH_CACHE_NAME);
-    }
-
-    private void clearCache() {
-        CacheManager cacheManager = cacheManager(CACHE_NAMES);
-
-        cacheManager.getCacheNames().forEach(this::clearCache);
-    }
-
-    private void clearCache(String cacheName) {
-        CacheManager cacheManager = cacheManager(CACHE_NAMES);
-
-        if (cacheName != null && cacheName.length() > 0) {
-            try {
-                clearCache(cacheManager, cacheName);
-            } catch (Exception e) {
-                log.error("Cache name ({}) either doesn't exist or couldn't be cleared", cacheName);
-            }
-        } else {
-            // Default to clearing all caches
-            clearCache();
-        }
-    }
-
-    private void clearCache(CacheManager cacheManager, String cacheName) {
-        Cache cache = cacheManager.getCache(cacheName);
+    public BoundedCacheManager cacheManager(
+        @Value("${org.animeatsume.cache.cache-names}") String[] cacheNames,
+        PersistentCacheStore persistentCacheStore,
+        @Qualifier(CACHE_REFRESH_EXECUTOR_NAME) Executor cacheRefreshExecutor
+    ) {
+        Map<String, CacheSpec> cacheSpecs = Binder.get(env)
+            .bind("org.animeatsume.cache.specs", Bindable.mapOf(String.class, CacheSpec.class))
+            .orElse(Map.of());
 
-        if (cache != null) {
-            cache.clear();
+        log.info("Caching activated for cache names: {}", (Object[]) cacheNames);
 
-            log.info("Cleared cache ({}) at {}", cache.getName(), LocalDateTime.now());
-        }
+        return new BoundedCacheManager(cacheNames, cacheSpecs, persistentCacheStore, cacheRefreshExecutor);
     }
 
 
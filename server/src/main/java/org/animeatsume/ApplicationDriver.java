@@ -17,7 +17,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  *      for each of these specific classes.
  */
 
-// TODO Replace blocking/synchronous RestTemplate usage with webflux's non-blocking/async WebClient
+// TODO Replace remaining blocking/synchronous RestTemplate usage with webflux's non-blocking/async WebClient (see `CorsProxy.doCorsRequestAsync()`)
 @SpringBootApplication
 @Log4j2
 public class ApplicationDriver {
@@ -0,0 +1,158 @@
+package org.animeatsume.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.ApplicationConfig;
+import org.animeatsume.model.Anchor;
+import org.animeatsume.model.TitlesAndEpisodes;
+import org.animeatsume.utils.regex.RegexUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves episode videos before they're requested, since users almost always watch episode N+1 right after N
+ * and resolving an episode's videos can take several seconds.
+ *
+ * Episode lists seen in search results are remembered (by episode URL) so that when an episode is requested,
+ * the one(s) after it are known and can be resolved on the low-priority {@link ApplicationConfig#PREFETCH_EXECUTOR_NAME}
+ * pool, leaving them in the episode-videos cache for when the user gets to them.
+ */
+@Log4j2
+@Component
+public class EpisodePrefetcher {
+    private final Executor prefetchExecutor;
+    private final int nextEpisodesToPrefetch;
+    // Episode URL -> URLs of the episodes after it, in watch order
+    private final Cache<String, List<String>> nextEpisodeUrls;
+    private final Set<String> prefetchesInFlight = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public EpisodePrefetcher(
+        @Qualifier(ApplicationConfig.PREFETCH_EXECUTOR_NAME) Executor prefetchExecutor,
+        @Value("${org.animeatsume.video.prefetch.next-episodes}") int nextEpisodesToPrefetch,
+        @Value("${org.animeatsume.video.prefetch.max-tracked-episodes}") long maxTrackedEpisodes
+    ) {
+        this.prefetchExecutor = prefetchExecutor;
+        this.nextEpisodesToPrefetch = nextEpisodesToPrefetch;
+        this.nextEpisodeUrls = Caffeine.newBuilder()
+            .maximumSize(maxTrackedEpisodes)
+            .build();
+    }
+
+    public boolean isEnabled() {
+        return nextEpisodesToPrefetch > 0;
+    }
+
+    /**
+     * Remembers the order of the given show's episodes so that {@link #prefetchEpisodesAfter(String, Consumer)}
+     * knows which ones come next.
+     */
+    public void trackEpisodes(TitlesAndEpisodes.EpisodesForTitle show) {
+        List<String> episodeUrls = getEpisodeUrlsInWatchOrder(show);
+
+        if (!isEnabled() || episodeUrls.isEmpty()) {
+            return;
+        }
+
+        for (int i = 0; i < episodeUrls.size(); i++) {
+            List<String> nextUrls = episodeUrls.subList(i + 1, Math.min(i + 1 + nextEpisodesToPrefetch, episodeUrls.size()));
+
+            nextEpisodeUrls.put(episodeUrls.get(i), List.copyOf(nextUrls));
+        }
+    }
+
+    /**
+     * Resolves the first episode of the given show in the background, e.g. for the top search result.
+     *
+     * @param resolveVideos Resolves and caches an episode's videos given its URL.
+     */
+    public void prefetchFirstEpisode(TitlesAndEpisodes.EpisodesForTitle show, Consumer<String> resolveVideos) {
+        List<String> episodeUrls = getEpisodeUrlsInWatchOrder(show);
+
+        if (!isEnabled() || episodeUrls.isEmpty()) {
+            return;
+        }
+
+        prefetch(episodeUrls.get(0), resolveVideos);
+    }
+
+    /**
+     * Resolves the episode(s) after the given one in the background, if its show's episodes have been tracked.
+     *
+     * @param resolveVideos Resolves and caches an episode's videos given its URL.
+     */
+    public void prefetchEpisodesAfter(String episodeUrl, Consumer<String> resolveVideos) {
+        if (!isEnabled() || episodeUrl == null) {
+            return;
+        }
+
+        List<String> nextUrls = nextEpisodeUrls.getIfPresent(episodeUrl);
+
+        if (nextUrls == null) {
+            return;
+        }
+
+        nextUrls.forEach(nextUrl -> prefetch(nextUrl, resolveVideos));
+    }
+
+    private void prefetch(String episodeUrl, Consumer<String> resolveVideos) {
+        if (!prefetchesInFlight.add(episodeUrl)) {
+            return;
+        }
+
+        try {
+            prefetchExecutor.execute(() -> {
+                try {
+                    log.debug("Prefetching videos for episode ({})", episodeUrl);
+
+                    resolveVideos.accept(episodeUrl);
+                } catch (Exception e) {
+                    log.info("Could not prefetch videos for episode ({}). Error = {}", episodeUrl, e.getMessage());
+                } finally {
+                    prefetchesInFlight.remove(episodeUrl);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Queue is full, so the task never runs to clear the URL from being "in flight"; it can be prefetched later
+            prefetchesInFlight.remove(episodeUrl);
+
+            log.debug("Skipped prefetching videos for episode ({}) since too many prefetches are queued", episodeUrl);
+        }
+    }
+
+    /**
+     * Episode URLs sorted by the episode number in their titles, since providers list them in different orders
+     * (often newest first). Episodes without a number keep their relative order at the end.
+     */
+    private static List<String> getEpisodeUrlsInWatchOrder(TitlesAndEpisodes.EpisodesForTitle show) {
+        if (show == null || show.getEpisodes() == null) {
+            return List.of();
+        }
+
+        return show.getEpisodes().stream()
+            .filter(episode -> episode.getUrl() != null && !episode.getUrl().isEmpty())
+            .sorted(Comparator.comparingDouble(EpisodePrefetcher::getEpisodeNumber))
+            .map(Anchor::getUrl)
+            .collect(Collectors.toList());
+    }
+
+    private static double getEpisodeNumber(Anchor episode) {
+        List<String> episodeNumberMatches = RegexUtils.getFirstMatchGroups("\\d+(\\.\\d+)?", episode.getTitle());
+
+        return episodeNumberMatches.isEmpty()
+            ? Double.MAX_VALUE
+            : Double.parseDouble(episodeNumberMatches.get(0));
+    }
+}
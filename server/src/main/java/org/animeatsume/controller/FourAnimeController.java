@@ -9,6 +9,7 @@ import org.animeatsume.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 
+import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -21,13 +22,8 @@ public class FourAnimeController implements ShowSearchController {
     FourAnimeService fourAnimeService;
 
     public TitlesAndEpisodes searchShows(TitleSearchRequest request) {
-        TitlesAndEpisodes titleResults = null;
-
-        try {
-            titleResults = fourAnimeService.searchTitle(request.getTitle());
-        } catch (Exception e) {
-            // 4anime is not working
-        }
+        // Failures are left to the caller (e.g. `ProviderRegistry`) so they count against 4anime's circuit breaker
+        TitlesAndEpisodes titleResults = fourAnimeService.searchTitle(request.getTitle());
 
         if (titleResults != null) {
             List<CompletableFuture<Void>> episodeSearchFutures = titleResults.getResults().stream()
@@ -40,14 +36,20 @@ public class FourAnimeController implements ShowSearchController {
         return titleResults;
     }
 
-    public TitlesAndEpisodes.EpisodesForTitle getVideosForEpisode(String url) {
-        VideoSearchResult video = null;
+    public TitlesAndEpisodes searchTitles(TitleSearchRequest request) {
+        return fourAnimeService.searchTitle(request.getTitle());
+    }
 
-        try {
-            video = fourAnimeService.getVideoForEpisode(url);
-        } catch (Exception e) {
-            log.error("Could not fetch video for episode from <{}>", url);
-        }
+    public CompletableFuture<TitlesAndEpisodes.EpisodesForTitle> searchEpisodes(TitlesAndEpisodes.EpisodesForTitle show) {
+        return fourAnimeService.searchEpisodes(show).thenApply(ignored -> show);
+    }
+
+    public List<String> getHosts() {
+        return List.of(URI.create(FourAnimeService.ORIGIN).getHost());
+    }
+
+    public TitlesAndEpisodes.EpisodesForTitle getVideosForEpisode(String url) {
+        VideoSearchResult video = fourAnimeService.getVideoForEpisode(url);
 
         if (video == null) {
             return null;
@@ -4,6 +4,7 @@ import lombok.extern.log4j.Log4j2;
 import org.animeatsume.model.Anchor;
 import org.animeatsume.model.TitleSearchRequest;
 import org.animeatsume.model.TitlesAndEpisodes;
+import org.animeatsume.model.VideoSourceMetadata;
 import org.animeatsume.model.kissanime.CaptchaAttempt;
 import org.animeatsume.model.kissanime.KissanimeVideoHostRequest;
 import org.animeatsume.model.kissanime.KissanimeVideoHostResponse;
@@ -11,26 +12,32 @@ import org.animeatsume.model.kissanime.NovelPlanetSourceResponse;
 import org.animeatsume.service.KissanimeRuService;
 import org.animeatsume.service.NovelPlanetService;
 import org.animeatsume.service.VideoFileService;
+import org.animeatsume.service.VideoRangeSizer;
+import org.animeatsume.service.VideoSourceMetadataService;
+import org.animeatsume.service.VideoStreamService;
 import org.animeatsume.utils.ObjectUtils;
 import org.animeatsume.utils.http.CorsProxy;
+import org.animeatsume.utils.http.FileRanges;
 import org.animeatsume.utils.http.Requests;
 import org.animeatsume.utils.regex.RegexUtils;
 import org.animeatsume.dao.AnimeAtsumeDao;
 import org.animeatsume.dao.model.CaptchaAnswer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.client.RestClientException;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
@@ -55,6 +62,15 @@ public class KissanimeRuController implements ShowSearchController {
     @Autowired
     VideoFileService videoFileService;
 
+    @Autowired
+    VideoStreamService videoStreamService;
+
+    @Autowired
+    VideoSourceMetadataService videoSourceMetadataService;
+
+    @Autowired
+    VideoRangeSizer videoRangeSizer;
+
     @Autowired
     AnimeAtsumeDao dao;
 
@@ -80,6 +96,10 @@ public class KissanimeRuController implements ShowSearchController {
         return titlesAndEpisodes;
     }
 
+    public List<String> getHosts() {
+        return List.of(URI.create(KissanimeRuService.KISSANIME_ORIGIN).getHost());
+    }
+
     public TitlesAndEpisodes.EpisodesForTitle getVideosForEpisode(String url) {
         return getVideosForEpisode(new KissanimeVideoHostRequest(url, null));
     }
@@ -272,13 +292,18 @@ public class KissanimeRuController implements ShowSearchController {
         );
     }
 
+    /**
+     * @return The video stream, or {@code null} if a downloaded video file was written directly to {@code response}.
+     */
     public ResponseEntity<Resource> getProxiedVideoStream(
         String showName,
         String episodeName,
         String videoQuality,
         String videoUrl,
-        HttpHeaders requestHeaders
-    ) {
+        HttpHeaders requestHeaders,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
         log.info("Serving video stream: show name ({}), episode name ({}), video quality ({}), source URL ({})",
             showName,
             episodeName,
@@ -288,8 +313,21 @@ public class KissanimeRuController implements ShowSearchController {
 
         if (!downloadVideos) {
             // Proxy video bytes from URL since the videos aren't being downloaded.
-            // Buffer videos with default buffer defined in {@code getContentRangeStartAndEndAndLength()}.
-            List<Long> ranges = Requests.getContentRangeStartAndEndAndLength(videoUrl, requestHeaders, false);
+            // Served from the chunk cache when possible so seeks/rewatches don't re-download the video.
+            try {
+                return videoStreamService.getVideoRange(request.getRemoteAddr(), videoUrl, requestHeaders);
+            } catch (RestClientException e) {
+                log.info("Could not serve video ({}) from chunk cache, proxying it directly instead. Error = {}", videoUrl, e.getMessage());
+            }
+
+            VideoSourceMetadata metadata = videoSourceMetadataService.getMetadata(videoUrl);
+            long contentLength = metadata != null ? metadata.getContentLength() : 0;
+            long rangeSize = videoRangeSizer.getRangeSize(request.getRemoteAddr(), videoUrl, Requests.getRangeStart(requestHeaders, contentLength), contentLength);
+            List<Long> ranges = metadata != null
+                ? Requests.getContentRangeStartAndEndAndLength(contentLength, rangeSize, requestHeaders, false)
+                : Requests.getContentRangeStartAndEndAndLength(videoUrl, rangeSize, requestHeaders, false);
+
+            videoRangeSizer.recordServedRange(request.getRemoteAddr(), videoUrl, ranges.get(0), ranges.get(1));
 
             HttpHeaders proxyHeaders = new HttpHeaders();
             proxyHeaders.setAccept(requestHeaders.getAccept());
@@ -308,7 +346,7 @@ public class KissanimeRuController implements ShowSearchController {
         File videoFile = videoFileService.getVideoFile(showName, episodeName, videoQuality);
 
         if (videoFile == null) {
-            log.info("Video file not found. Serving content from UrlResource at URL ({})", videoUrl);
+            log.info("Video file not found. Proxying content from URL ({})", videoUrl);
             return Requests.getUrlResourceStreamResponse(videoUrl);
         }
 
@@ -330,16 +368,17 @@ public class KissanimeRuController implements ShowSearchController {
             return Requests.getUrlResourceStreamResponse(videoUrl);
         }
 
-        FileSystemResource fileResource = new FileSystemResource(videoFile);
-        log.info("Video file found. Serving FileSystemResource");
-
-        return ResponseEntity
-            .status(HttpStatus.PARTIAL_CONTENT)
-            .contentType(
-                MediaTypeFactory
-                    .getMediaType(fileResource)
-                    .orElse(MediaType.APPLICATION_OCTET_STREAM)
-            )
-            .body(fileResource);
+        log.info("Video file found. Serving it directly");
+
+        FileRanges.serve(
+            videoFile,
+            MediaTypeFactory
+                .getMediaType(videoFile.getName())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM),
+            request,
+            response
+        );
+
+        return null;
     }
 }
@@ -10,6 +10,7 @@ import org.animeatsume.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 
+import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -22,23 +23,32 @@ public class NineAnimeController implements ShowSearchController {
     NineAnimeService nineAnimeService;
 
     public SearchAnimeResponse searchShows(TitleSearchRequest request) {
-        SearchAnimeResponse titleResults = null;
+        // Failures are left to the caller (e.g. `ProviderRegistry`) so they count against 9anime's circuit breaker
+        TitlesAndEpisodes titleResults = nineAnimeService.searchShows(request.getTitle());
 
-        try {
-            titleResults = new SearchAnimeResponse(nineAnimeService.searchShows(request.getTitle()));
+        if (titleResults == null) {
+            return null;
+        }
 
-            if (titleResults != null) {
-                List<CompletableFuture<TitlesAndEpisodes.EpisodesForTitle>> episodeSearchFutures = titleResults.getResults().stream()
-                    .map(titleResult -> nineAnimeService.searchEpisodes((TitlesAndEpisodes.EpisodesForTitle) titleResult))
-                    .collect(Collectors.toList());
+        List<CompletableFuture<TitlesAndEpisodes.EpisodesForTitle>> episodeSearchFutures = titleResults.getResults().stream()
+            .map(titleResult -> nineAnimeService.searchEpisodes((TitlesAndEpisodes.EpisodesForTitle) titleResult))
+            .collect(Collectors.toList());
 
-                ObjectUtils.getAllCompletableFutureResults(episodeSearchFutures);
-            }
-        } catch (Exception e) {
-            log.error("Exception trying to serach 9anime:", e);
-        }
+        ObjectUtils.getAllCompletableFutureResults(episodeSearchFutures);
+
+        return new SearchAnimeResponse(titleResults);
+    }
+
+    public TitlesAndEpisodes searchTitles(TitleSearchRequest request) {
+        return nineAnimeService.searchShows(request.getTitle());
+    }
+
+    public CompletableFuture<TitlesAndEpisodes.EpisodesForTitle> searchEpisodes(TitlesAndEpisodes.EpisodesForTitle show) {
+        return nineAnimeService.searchEpisodes(show);
+    }
 
-        return titleResults;
+    public List<String> getHosts() {
+        return List.of(URI.create(NineAnimeService.ORIGIN).getHost());
     }
 
     public TitlesAndEpisodes.EpisodesForTitle getVideosForEpisode(String url) {
@@ -0,0 +1,263 @@
+package org.animeatsume.controller;
+
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.utils.CircuitBreaker;
+import org.animeatsume.utils.RollingStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of every {@link ShowSearchController} bean along with a rolling window of
+ * latency/success stats for each of them, so that callers can try the fastest healthy
+ * providers first instead of relying on a hard-coded order.
+ *
+ * Each provider also has a {@link CircuitBreaker} per operation so that providers which are down
+ * are skipped outright rather than costing every request a full network timeout.
+ */
+@Log4j2
+@Component
+public class ProviderRegistry {
+    public enum Operation {
+        SEARCH_SHOWS,
+        // Fetching a single show's episode list on demand, which is tracked apart from searches so slow/failing
+        // scrapes of individual shows don't affect search ranking or the search circuit breaker
+        GET_EPISODES,
+        GET_VIDEOS
+    }
+
+    private final Map<String, ShowSearchController> providers;
+    private final Map<String, RollingStats> stats = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final Map<String, String> providersByHost = new HashMap<>();
+
+    @Value("${org.animeatsume.search.disabled-providers}")
+    private String[] disabledSearchProviders;
+
+    @Value("${org.animeatsume.video.disabled-providers}")
+    private String[] disabledVideoProviders;
+
+    @Value("${org.animeatsume.providers.stats.window-size}")
+    private int statsWindowSize;
+
+    @Value("${org.animeatsume.providers.stats.min-samples}")
+    private int minSamplesForRanking;
+
+    @Value("${org.animeatsume.providers.stats.min-success-rate}")
+    private double minHealthySuccessRate;
+
+    @Value("${org.animeatsume.providers.circuit-breaker.window-size}")
+    private int circuitBreakerWindowSize;
+
+    @Value("${org.animeatsume.providers.circuit-breaker.min-calls}")
+    private int circuitBreakerMinCalls;
+
+    @Value("${org.animeatsume.providers.circuit-breaker.failure-rate-threshold}")
+    private double circuitBreakerFailureRateThreshold;
+
+    @Value("${org.animeatsume.providers.circuit-breaker.slow-call-threshold}")
+    private Duration circuitBreakerSlowCallThreshold;
+
+    @Value("${org.animeatsume.providers.circuit-breaker.open-duration}")
+    private Duration circuitBreakerOpenDuration;
+
+    @Value("${org.animeatsume.providers.circuit-breaker.half-open-trial-calls}")
+    private int circuitBreakerHalfOpenTrialCalls;
+
+    @Autowired
+    public ProviderRegistry(Map<String, ShowSearchController> providers) {
+        this.providers = providers;
+
+        providers.forEach((providerName, provider) -> provider.getHosts().forEach(host ->
+            providersByHost.put(host.toLowerCase(), providerName)
+        ));
+
+        log.info("Registered show search providers: {}", providers.keySet());
+        log.debug("Provider hosts: {}", providersByHost);
+    }
+
+    public ShowSearchController getProvider(String providerName) {
+        return providers.get(providerName);
+    }
+
+    public List<String> getSearchProviderNames() {
+        return getRankedProviderNames(Operation.SEARCH_SHOWS, disabledSearchProviders);
+    }
+
+    public List<String> getVideoProviderNames() {
+        return getRankedProviderNames(Operation.GET_VIDEOS, disabledVideoProviders);
+    }
+
+    /**
+     * Video providers to try for the given URL: only the provider that owns the URL's host if there is one,
+     * otherwise all of them as in {@link #getVideoProviderNames()}.
+     * No other provider can resolve a URL from a known provider's site, so if the owner is disabled, none are returned.
+     */
+    public List<String> getVideoProviderNames(String url) {
+        String owningProviderName = getProviderNameForUrl(url);
+
+        if (owningProviderName == null) {
+            return getVideoProviderNames();
+        }
+
+        if (Arrays.asList(disabledVideoProviders).contains(owningProviderName)) {
+            return List.of();
+        }
+
+        return List.of(owningProviderName);
+    }
+
+    /**
+     * @return Name of the provider whose {@link ShowSearchController#getHosts()} includes the URL's host
+     *         (or a parent domain of it), or {@code null} if no provider claims it.
+     */
+    public String getProviderNameForUrl(String url) {
+        String host = getHost(url);
+
+        if (host == null) {
+            return null;
+        }
+
+        while (true) {
+            String providerName = providersByHost.get(host);
+
+            if (providerName != null) {
+                return providerName;
+            }
+
+            int subdomainEndIndex = host.indexOf('.');
+
+            // Stop before checking top-level domains
+            if (subdomainEndIndex < 0 || host.indexOf('.', subdomainEndIndex + 1) < 0) {
+                return null;
+            }
+
+            host = host.substring(subdomainEndIndex + 1);
+        }
+    }
+
+    /**
+     * Orders enabled providers so that healthy ones come first, fastest (p50) first.
+     * Providers that don't have enough samples yet are treated as healthy so they get measured.
+     * Unhealthy providers go last, most successful first, so they're only tried once everything else fails.
+     */
+    private List<String> getRankedProviderNames(Operation operation, String[] disabledProviders) {
+        List<String> disabledProviderNames = Arrays.asList(disabledProviders);
+        Comparator<String> healthyFirst = Comparator.comparing(providerName -> !isHealthy(providerName, operation));
+        Comparator<String> mostSuccessfulFirst = Comparator.comparing(providerName -> -getStats(providerName, operation).getSuccessRate());
+        Comparator<String> fastestFirst = Comparator.comparing(providerName -> getStats(providerName, operation).getLatencyPercentile(0.5));
+
+        return providers.keySet().stream()
+            .filter(providerName -> !disabledProviderNames.contains(providerName))
+            .sorted(healthyFirst.thenComparing(mostSuccessfulFirst).thenComparing(fastestFirst))
+            .collect(Collectors.toList());
+    }
+
+    public boolean isHealthy(String providerName, Operation operation) {
+        RollingStats providerStats = getStats(providerName, operation);
+
+        return providerStats.getSampleCount() < minSamplesForRanking
+            || providerStats.getSuccessRate() >= minHealthySuccessRate;
+    }
+
+    public RollingStats getStats(String providerName, Operation operation) {
+        return stats.computeIfAbsent(getStatsKey(providerName, operation), key -> new RollingStats(statsWindowSize));
+    }
+
+    public CircuitBreaker getCircuitBreaker(String providerName, Operation operation) {
+        return circuitBreakers.computeIfAbsent(getStatsKey(providerName, operation), key -> new CircuitBreaker(
+            circuitBreakerWindowSize,
+            circuitBreakerMinCalls,
+            circuitBreakerFailureRateThreshold,
+            circuitBreakerSlowCallThreshold,
+            circuitBreakerOpenDuration,
+            circuitBreakerHalfOpenTrialCalls
+        ));
+    }
+
+    /**
+     * Runs the given call against a provider, recording its latency and whether it succeeded.
+     * Exceptions are logged and swallowed so one failing provider doesn't break a fallback chain.
+     * The call is skipped if the provider's circuit is open.
+     *
+     * Some providers report failures (e.g. upstream 4xx/5xx responses or pages that couldn't be parsed)
+     * by returning {@code null} rather than throwing, so the result is only counted as a success if
+     * {@code isSuccessful} accepts it. It should only reject results that mean the call failed: e.g. a search
+     * with no matches is a valid answer, and counting it as a failure would open the circuits of (and
+     * rank down) every provider whenever users search for a title none of them have.
+     *
+     * @return The call's result (even if it wasn't successful), or {@code null} if it threw or was skipped.
+     */
+    public <T> T call(
+        String providerName,
+        Operation operation,
+        Function<ShowSearchController, T> providerCall,
+        Predicate<T> isSuccessful
+    ) {
+        CircuitBreaker circuitBreaker = getCircuitBreaker(providerName, operation);
+
+        if (!circuitBreaker.tryAcquirePermission()) {
+            log.debug("Skipping provider ({}) for {} since its circuit is open", providerName, operation);
+
+            return null;
+        }
+
+        ShowSearchController provider = getProvider(providerName);
+        long startTime = System.currentTimeMillis();
+        boolean success = false;
+
+        try {
+            T result = providerCall.apply(provider);
+            success = isSuccessful.test(result);
+
+            if (!success) {
+                log.info("Provider ({}) returned an invalid result during {}", providerName, operation);
+            }
+
+            return result;
+        } catch (Exception e) {
+            log.error("Provider ({}) failed during {}. Error = {}", providerName, operation, e.getMessage());
+
+            return null;
+        } finally {
+            long latencyMs = System.currentTimeMillis() - startTime;
+            RollingStats providerStats = getStats(providerName, operation);
+            CircuitBreaker.State previousCircuitState = circuitBreaker.getState();
+
+            providerStats.record(latencyMs, success);
+            circuitBreaker.record(latencyMs, success);
+
+            if (circuitBreaker.getState() != previousCircuitState) {
+                log.info("Provider ({}) {} circuit changed from {} to {}", providerName, operation, previousCircuitState, circuitBreaker.getState());
+            }
+
+            log.debug("Provider ({}) {} stats: {}", providerName, operation, providerStats);
+        }
+    }
+
+    private static String getHost(String url) {
+        try {
+            String host = URI.create(url).getHost();
+
+            return host == null ? null : host.toLowerCase();
+        } catch (IllegalArgumentException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    private static String getStatsKey(String providerName, Operation operation) {
+        return providerName + "#" + operation;
+    }
+}
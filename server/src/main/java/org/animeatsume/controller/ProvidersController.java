@@ -0,0 +1,402 @@
+package org.animeatsume.controller;
+
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.ApplicationConfig;
+import org.animeatsume.model.Anchor;
+import org.animeatsume.model.SearchAnimeResponse;
+import org.animeatsume.model.TitleSearchRequest;
+import org.animeatsume.model.TitlesAndEpisodes;
+import org.animeatsume.utils.Deadline;
+import org.animeatsume.utils.ObjectUtils;
+import org.animeatsume.utils.cache.BoundedCacheManager;
+import org.animeatsume.utils.http.SignedUrls;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Queries every enabled {@link ShowSearchController} at the same time rather than one after the other,
+ * so a cold search costs roughly the slowest provider's latency instead of the sum of all of them.
+ */
+@Log4j2
+@Controller
+public class ProvidersController {
+    public static final String TITLE_EVENT = "title";
+    public static final String EPISODES_EVENT = "episodes";
+    public static final String DONE_EVENT = "done";
+
+    @Autowired
+    ProviderRegistry providerRegistry;
+
+    @Autowired
+    @Qualifier(ApplicationConfig.SHOW_SEARCH_EXECUTOR_NAME)
+    Executor showSearchExecutor;
+
+    @Value("${org.animeatsume.search.wait-for-more-results}")
+    Duration waitForMoreResults;
+
+    @Value("${org.animeatsume.search.stream-timeout}")
+    Duration streamTimeout;
+
+    @Value("${org.animeatsume.search.time-budget}")
+    Duration searchTimeBudget;
+
+    @Value("${org.animeatsume.search.eager-episode-titles}")
+    int eagerEpisodeTitles;
+
+    @Value("${org.animeatsume.video.url-expiration-margin}")
+    Duration videoUrlExpirationMargin;
+
+    @Autowired
+    BoundedCacheManager cacheManager;
+
+    @PostConstruct
+    public void registerCacheRefreshers() {
+        cacheManager.registerRefresher(ApplicationConfig.ANIME_TITLE_SEARCH_CACHE_NAME, key -> refreshShows((TitleSearchRequest) key));
+        cacheManager.registerTimeToLiveResolver(ApplicationConfig.EPISODE_VIDEOS_CACHE_NAME, videos -> getVideoUrlsTimeToLive((TitlesAndEpisodes.EpisodesForTitle) videos));
+    }
+
+    // Like most annotations, for `@Cacheable`, we can only use either a `static final` var (from another class)
+    // or use the .properties var key directly (without the "proxy" of another class).
+    // However, we can't use the .properties key to reduce duplicated code (so we don't have to repeat the .properties
+    // var in source code), so we must duplicate the code here unfortunately.
+    // See:
+    //  - https://stackoverflow.com/questions/39013894/reading-from-application-properties-attribute-value-must-be-constant/39013994#39013994
+    // Partial/empty results (e.g. the time budget ran out) aren't cached so the next search can get the full results.
+    // The cached value is the response model rather than the `ResponseEntity` so it can be persisted.
+    @Cacheable(cacheNames = ApplicationConfig.ANIME_TITLE_SEARCH_CACHE_NAME, unless = "#result.incomplete or #result.results.isEmpty()")
+    public SearchAnimeResponse searchShows(TitleSearchRequest request) {
+        return searchAllProviders(request);
+    }
+
+    /**
+     * Re-runs a cached search ahead of its expiry, bypassing the cache.
+     *
+     * @return The new results, or {@code null} to keep the cached ones if the new results are partial/empty.
+     */
+    private SearchAnimeResponse refreshShows(TitleSearchRequest request) {
+        SearchAnimeResponse searchResults = Deadline.runWith(Deadline.after(searchTimeBudget), () -> searchAllProviders(request));
+
+        if (searchResults.isIncomplete() || searchResults.getResults().isEmpty()) {
+            return null;
+        }
+
+        return searchResults;
+    }
+
+    /**
+     * Searches all enabled providers in parallel and merges their results.
+     *
+     * Returns as soon as either every provider has finished or the first provider with results
+     * has finished and {@code org.animeatsume.search.wait-for-more-results} has elapsed since then,
+     * whichever happens first.
+     * Providers that haven't finished by then are left out of the response and aborted, so they don't
+     * keep running (and holding connections) after the response is sent.
+     *
+     * Only the top {@code org.animeatsume.search.eager-episode-titles} shows of each provider include their
+     * episodes; the rest are fetched on demand via {@link #getEpisodes(String)}.
+     *
+     * @param request Show title to search for.
+     * @return Merged results of all providers that finished in time, ordered by completion.
+     */
+    public SearchAnimeResponse searchAllProviders(TitleSearchRequest request) {
+        List<String> providerNames = providerRegistry.getSearchProviderNames();
+        Queue<TitlesAndEpisodes> completedResults = new ConcurrentLinkedQueue<>();
+        CompletableFuture<Void> firstResultsFound = new CompletableFuture<>();
+
+        log.info("Searching providers {} for title ({}) ...", providerNames, request.getTitle());
+
+        Deadline deadline = Deadline.current();
+        // Providers get their own deadline so the ones left out can be aborted without marking the whole search as expired
+        Deadline providersDeadline = Deadline.after(Duration.ofMillis(getMaxWaitMillis(deadline, searchTimeBudget.toMillis())));
+
+        List<CompletableFuture<TitlesAndEpisodes>> providerFutures = Deadline.bind(providersDeadline, () -> providerNames.stream()
+            .map(providerName -> CompletableFuture
+                .supplyAsync(
+                    () -> providerRegistry.call(
+                        providerName,
+                        ProviderRegistry.Operation.SEARCH_SHOWS,
+                        provider -> searchTitlesWithTopEpisodes(provider, request),
+                        Objects::nonNull
+                    ),
+                    showSearchExecutor
+                )
+                .thenApply(results -> {
+                    if (hasResults(results)) {
+                        completedResults.add(results);
+                        firstResultsFound.complete(null);
+                    }
+
+                    return results;
+                })
+            )
+            .collect(Collectors.toList())
+        );
+
+        CompletableFuture<Void> allProvidersFinished = CompletableFuture.allOf(providerFutures.toArray(new CompletableFuture[0]));
+
+        try {
+            CompletableFuture.anyOf(firstResultsFound, allProvidersFinished).get(getMaxWaitMillis(deadline, Long.MAX_VALUE), TimeUnit.MILLISECONDS);
+
+            if (!allProvidersFinished.isDone()) {
+                allProvidersFinished.get(getMaxWaitMillis(deadline, waitForMoreResults.toMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            log.info("Not all providers finished searching for ({}) in time", request.getTitle());
+        } catch (InterruptedException | ExecutionException e) {
+            log.error("Could not wait for provider search results. Error = {}", e.getMessage());
+        }
+
+        if (!allProvidersFinished.isDone()) {
+            log.info("Cancelling unfinished provider searches for ({})", request.getTitle());
+            // Disconnects their in-flight requests and fails any new ones, since cancelling the futures doesn't stop them
+            providersDeadline.expire();
+            providerFutures.forEach(future -> future.cancel(true));
+
+            if (deadline != null && deadline.getRemainingMillis() == 0) {
+                log.info("Request deadline expired while searching for ({})", request.getTitle());
+                deadline.expire();
+            }
+        }
+
+        providersDeadline.release();
+
+        SearchAnimeResponse searchResults = new SearchAnimeResponse(mergeResults(new ArrayList<>(completedResults)));
+        searchResults.setIncomplete(deadline != null && deadline.isExpired());
+
+        return searchResults;
+    }
+
+    private TitlesAndEpisodes searchTitlesWithTopEpisodes(ShowSearchController provider, TitleSearchRequest request) {
+        TitlesAndEpisodes titles = provider.searchTitles(request);
+
+        if (!hasResults(titles)) {
+            return titles;
+        }
+
+        List<CompletableFuture<TitlesAndEpisodes.EpisodesForTitle>> episodeSearches = titles.getResults().stream()
+            .limit(eagerEpisodeTitles)
+            .map(show -> provider.searchEpisodes((TitlesAndEpisodes.EpisodesForTitle) show))
+            .collect(Collectors.toList());
+
+        ObjectUtils.getAllCompletableFutureResults(episodeSearches);
+
+        return titles;
+    }
+
+    /**
+     * Fetches a show's full episode list from the provider that owns its URL.
+     *
+     * Search results only include episodes for their top shows, so the rest are fetched here
+     * once the user opens them. Lists are cached so paging through them doesn't re-scrape the show.
+     *
+     * @param showUrl URL of a show from the search results.
+     * @return The show with its episodes, or {@code null} if no provider owns the URL or the provider failed.
+     */
+    @Cacheable(cacheNames = ApplicationConfig.SHOW_EPISODES_CACHE_NAME, unless = "#result == null or #result.episodes.isEmpty()")
+    public TitlesAndEpisodes.EpisodesForTitle getEpisodes(String showUrl) {
+        String providerName = providerRegistry.getProviderNameForUrl(showUrl);
+
+        if (providerName == null) {
+            log.info("No provider found for show ({})", showUrl);
+
+            return null;
+        }
+
+        return providerRegistry.call(providerName, ProviderRegistry.Operation.GET_EPISODES, provider -> {
+            CompletableFuture<TitlesAndEpisodes.EpisodesForTitle> episodeSearch = provider.searchEpisodes(new TitlesAndEpisodes.EpisodesForTitle(showUrl, null));
+
+            return ObjectUtils.getAllCompletableFutureResults(List.of(episodeSearch)).get(0);
+        }, Objects::nonNull);
+    }
+
+    /**
+     * Streams search results as Server-Sent Events as soon as they're available rather than
+     * waiting for every provider and episode list to finish.
+     *
+     * Events:
+     * <pre>
+     *  - {@value TITLE_EVENT}: A show (without episodes), sent as soon as its provider's title search finishes.
+     *  - {@value EPISODES_EVENT}: The same show with its episodes, sent as soon as its episode list is fetched.
+     *                             Only sent for each provider's top shows, like in {@link #searchAllProviders(TitleSearchRequest)}.
+     *  - {@value DONE_EVENT}: All providers and episode lists have finished.
+     * </pre>
+     *
+     * @param request Show title to search for.
+     * @return Emitter that receives events in the order above.
+     */
+    public SseEmitter streamShows(TitleSearchRequest request) {
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Set<String> sentShowUrls = ConcurrentHashMap.newKeySet();
+
+        emitter.onTimeout(emitter::complete);
+
+        // The stream outlives the request thread, so its deadline is bound only while submitting
+        // the provider searches in order to propagate it to them, and released once they're all done.
+        Deadline streamDeadline = Deadline.after(streamTimeout);
+        List<CompletableFuture<Void>> providerFutures = Deadline.bind(streamDeadline, () -> providerRegistry.getSearchProviderNames().stream()
+            .map(providerName -> CompletableFuture
+                .supplyAsync(
+                    () -> providerRegistry.call(
+                        providerName,
+                        ProviderRegistry.Operation.SEARCH_SHOWS,
+                        provider -> provider.searchTitles(request),
+                        Objects::nonNull
+                    ),
+                    showSearchExecutor
+                )
+                .thenCompose(titles -> {
+                    if (!hasResults(titles)) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+
+                    ShowSearchController provider = providerRegistry.getProvider(providerName);
+                    List<TitlesAndEpisodes.EpisodesForTitle> newShows = titles.getResults().stream()
+                        .map(show -> (TitlesAndEpisodes.EpisodesForTitle) show)
+                        .filter(show -> sentShowUrls.add(show.getUrl()))
+                        .collect(Collectors.toList());
+
+                    newShows.forEach(show -> sendEvent(emitter, TITLE_EVENT, show));
+
+                    List<CompletableFuture<Void>> episodeFutures = newShows.stream()
+                        .limit(eagerEpisodeTitles)
+                        .map(show -> {
+                            return provider.searchEpisodes(show).<Void>handle((showWithEpisodes, e) -> {
+                                if (e != null || showWithEpisodes == null) {
+                                    log.error("Provider ({}) could not get episodes for ({}). Error = {}", providerName, show.getUrl(), e == null ? null : e.getMessage());
+                                } else {
+                                    sendEvent(emitter, EPISODES_EVENT, showWithEpisodes);
+                                }
+
+                                return null;
+                            });
+                        })
+                        .collect(Collectors.toList());
+
+                    return CompletableFuture.allOf(episodeFutures.toArray(new CompletableFuture[0]));
+                })
+            )
+            .collect(Collectors.toList())
+        );
+
+        CompletableFuture.allOf(providerFutures.toArray(new CompletableFuture[0])).whenComplete((ignored, e) -> {
+            streamDeadline.release();
+            sendEvent(emitter, DONE_EVENT, sentShowUrls.size());
+            emitter.complete();
+        });
+
+        return emitter;
+    }
+
+    private static void sendEvent(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event()
+                .name(eventName)
+                .data(data, MediaType.APPLICATION_JSON)
+            );
+        } catch (IOException | IllegalStateException e) {
+            log.info("Could not send ({}) event, client likely disconnected. Error = {}", eventName, e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the episode straight to the provider that owns its URL's host. If the host is unknown,
+     * tries each enabled provider, fastest healthy one first, until one of them returns videos for it.
+     *
+     * Resolving videos requires multiple redirects and, for some providers, loading the page in a browser,
+     * so results are cached until their video URLs expire.
+     * Results found after the request's deadline expired may be degraded fallbacks, so they aren't cached.
+     *
+     * @param url Episode URL.
+     * @return Videos for the episode, or {@code null} if no provider could find any.
+     */
+    @Cacheable(
+        cacheNames = ApplicationConfig.EPISODE_VIDEOS_CACHE_NAME,
+        unless = "#result == null or #result.episodes.isEmpty() or T(org.animeatsume.utils.Deadline).current()?.isExpired() == true"
+    )
+    public TitlesAndEpisodes.EpisodesForTitle getVideosForEpisode(String url) {
+        Deadline deadline = Deadline.current();
+
+        for (String providerName : providerRegistry.getVideoProviderNames(url)) {
+            if (deadline != null && deadline.isExpired()) {
+                log.info("Request deadline expired before provider ({}) could be tried for ({})", providerName, url);
+                break;
+            }
+
+            TitlesAndEpisodes.EpisodesForTitle videosForEpisode = providerRegistry.call(
+                providerName,
+                ProviderRegistry.Operation.GET_VIDEOS,
+                provider -> provider.getVideosForEpisode(url),
+                Objects::nonNull
+            );
+
+            if (hasEpisodes(videosForEpisode)) {
+                return videosForEpisode;
+            }
+        }
+
+        return null;
+    }
+
+    private Duration getVideoUrlsTimeToLive(TitlesAndEpisodes.EpisodesForTitle videosForEpisode) {
+        List<String> videoUrls = videosForEpisode.getEpisodes().stream()
+            .map(Anchor::getUrl)
+            .collect(Collectors.toList());
+
+        return SignedUrls.getTimeToLive(videoUrls, videoUrlExpirationMargin);
+    }
+
+    private static long getMaxWaitMillis(Deadline deadline, long maxWaitMillis) {
+        return deadline == null
+            ? maxWaitMillis
+            : Math.min(maxWaitMillis, deadline.getRemainingMillis());
+    }
+
+    private static boolean hasResults(TitlesAndEpisodes titlesAndEpisodes) {
+        return titlesAndEpisodes != null
+            && titlesAndEpisodes.getResults() != null
+            && !titlesAndEpisodes.getResults().isEmpty();
+    }
+
+    private static boolean hasEpisodes(TitlesAndEpisodes.EpisodesForTitle episodesForTitle) {
+        return episodesForTitle != null
+            && episodesForTitle.getEpisodes() != null
+            && !episodesForTitle.getEpisodes().isEmpty();
+    }
+
+    /**
+     * Combines results from multiple providers, dropping shows with duplicate URLs.
+     */
+    private static List<Anchor> mergeResults(List<TitlesAndEpisodes> providerResults) {
+        Map<String, Anchor> mergedResults = new LinkedHashMap<>();
+
+        providerResults.forEach(titlesAndEpisodes -> titlesAndEpisodes.getResults()
+            .forEach(show -> mergedResults.putIfAbsent(show.getUrl(), show))
+        );
+
+        return new ArrayList<>(mergedResults.values());
+    }
+}
@@ -3,7 +3,34 @@ package org.animeatsume.controller;
 import org.animeatsume.model.TitleSearchRequest;
 import org.animeatsume.model.TitlesAndEpisodes;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface ShowSearchController {
     TitlesAndEpisodes searchShows(TitleSearchRequest request);
     TitlesAndEpisodes.EpisodesForTitle getVideosForEpisode(String url);
+
+    /**
+     * Searches for show titles only, without fetching each show's episode list.
+     * Defaults to {@link #searchShows(TitleSearchRequest)} for providers that can't split the two.
+     */
+    default TitlesAndEpisodes searchTitles(TitleSearchRequest request) {
+        return searchShows(request);
+    }
+
+    /**
+     * Fetches the episode list of a show returned from {@link #searchTitles(TitleSearchRequest)}.
+     * Defaults to the show as-is for providers whose title search already includes episodes.
+     */
+    default CompletableFuture<TitlesAndEpisodes.EpisodesForTitle> searchEpisodes(TitlesAndEpisodes.EpisodesForTitle show) {
+        return CompletableFuture.completedFuture(show);
+    }
+
+    /**
+     * Hostnames of the URLs this provider returns (e.g. episode URLs), so that requests for them
+     * can go straight to this provider instead of trying every provider in turn.
+     */
+    default List<String> getHosts() {
+        return List.of();
+    }
 }
@@ -9,6 +9,7 @@ import org.animeatsume.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 
+import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
@@ -21,29 +22,36 @@ public class ZoroToController implements ShowSearchController {
     ZoroToService zoroToService;
 
     public TitlesAndEpisodes searchShows(TitleSearchRequest request) {
-        TitlesAndEpisodes titleResults = null;
+        // Failures are left to the caller (e.g. `ProviderRegistry`) so they count against zoro.to's circuit breaker
+        TitlesAndEpisodes titleResults = zoroToService.searchShows(request.getTitle());
+        log.info("titleResults: {}", titleResults);
 
-        try {
-            titleResults = zoroToService.searchShows(request.getTitle());
-            log.info("titleResults: {}", titleResults);
+        if (titleResults != null) {
+            List<CompletableFuture<TitlesAndEpisodes.EpisodesForTitle>> episodeSearchFutures = titleResults.getResults().stream()
+                .map(titleResult -> zoroToService.searchEpisodes((TitlesAndEpisodes.EpisodesForTitle) titleResult))
+                .collect(Collectors.toList());
 
-            if (titleResults != null) {
-                List<CompletableFuture<TitlesAndEpisodes.EpisodesForTitle>> episodeSearchFutures = titleResults.getResults().stream()
-                    .map(titleResult -> zoroToService.searchEpisodes((TitlesAndEpisodes.EpisodesForTitle) titleResult))
-                    .collect(Collectors.toList());
+            List<TitlesAndEpisodes.EpisodesForTitle> allCompletableFutureResults =
+                ObjectUtils.getAllCompletableFutureResults(episodeSearchFutures);
 
-                List<TitlesAndEpisodes.EpisodesForTitle> allCompletableFutureResults =
-                    ObjectUtils.getAllCompletableFutureResults(episodeSearchFutures);
-
-                log.info(allCompletableFutureResults);
-            }
-        } catch (Exception e) {
-            log.error("Exception trying to serach {}:", ZoroToService.ORIGIN, e);
+            log.info(allCompletableFutureResults);
         }
 
         return titleResults;
     }
 
+    public TitlesAndEpisodes searchTitles(TitleSearchRequest request) {
+        return zoroToService.searchShows(request.getTitle());
+    }
+
+    public CompletableFuture<TitlesAndEpisodes.EpisodesForTitle> searchEpisodes(TitlesAndEpisodes.EpisodesForTitle show) {
+        return zoroToService.searchEpisodes(show);
+    }
+
+    public List<String> getHosts() {
+        return List.of(URI.create(ZoroToService.ORIGIN).getHost());
+    }
+
     public TitlesAndEpisodes.EpisodesForTitle getVideosForEpisode(String url) {
         VideoSearchResult video = zoroToService.getVideosForShow(url);
 
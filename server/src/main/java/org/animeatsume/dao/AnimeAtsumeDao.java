@@ -1,5 +1,6 @@
 package org.animeatsume.dao;
 
+import org.animeatsume.dao.model.CacheEntry;
 import org.animeatsume.dao.model.CaptchaAnswer;
 
 import java.util.List;
@@ -8,4 +9,10 @@ public interface AnimeAtsumeDao {
     List<CaptchaAnswer> getAllCaptchaAnswersByPrompt(String prompt);
     CaptchaAnswer saveNewCaptchaAnswer(CaptchaAnswer captchaAnswer);
     List<CaptchaAnswer> saveNewCaptchaAnswers(List<CaptchaAnswer> captchaAnswers);
+
+    CacheEntry getCacheEntry(String cacheName, String cacheKey);
+    CacheEntry saveCacheEntry(CacheEntry cacheEntry);
+    void deleteCacheEntry(String cacheName, String cacheKey);
+    int deleteCacheEntries(String cacheName);
+    int deleteExpiredCacheEntries();
 }
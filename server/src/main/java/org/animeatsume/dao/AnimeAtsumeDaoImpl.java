@@ -1,6 +1,8 @@
 package org.animeatsume.dao;
 
+import org.animeatsume.dao.model.CacheEntry;
 import org.animeatsume.dao.model.CaptchaAnswer;
+import org.animeatsume.dao.persistence.CacheEntryRepository;
 import org.animeatsume.dao.persistence.CaptchaAnswerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -12,6 +14,9 @@ public class AnimeAtsumeDaoImpl implements AnimeAtsumeDao {
     @Autowired
     CaptchaAnswerRepository captchaAnswerRepository;
 
+    @Autowired
+    CacheEntryRepository cacheEntryRepository;
+
     @Override
     public List<CaptchaAnswer> getAllCaptchaAnswersByPrompt(String prompt) {
         return captchaAnswerRepository.getAllCaptchaAnswersByPrompt(prompt);
@@ -26,4 +31,29 @@ public class AnimeAtsumeDaoImpl implements AnimeAtsumeDao {
     public List<CaptchaAnswer> saveNewCaptchaAnswers(List<CaptchaAnswer> captchaAnswers) {
         return captchaAnswerRepository.saveAll(captchaAnswers);
     }
+
+    @Override
+    public CacheEntry getCacheEntry(String cacheName, String cacheKey) {
+        return cacheEntryRepository.findById(new CacheEntry.CacheEntryPk(cacheName, cacheKey)).orElse(null);
+    }
+
+    @Override
+    public CacheEntry saveCacheEntry(CacheEntry cacheEntry) {
+        return cacheEntryRepository.save(cacheEntry);
+    }
+
+    @Override
+    public void deleteCacheEntry(String cacheName, String cacheKey) {
+        cacheEntryRepository.deleteById(new CacheEntry.CacheEntryPk(cacheName, cacheKey));
+    }
+
+    @Override
+    public int deleteCacheEntries(String cacheName) {
+        return cacheEntryRepository.deleteAllByCacheName(cacheName);
+    }
+
+    @Override
+    public int deleteExpiredCacheEntries() {
+        return cacheEntryRepository.deleteAllExpiredBefore(System.currentTimeMillis());
+    }
 }
@@ -0,0 +1,46 @@
+package org.animeatsume.dao.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Id;
+import jakarta.persistence.Column;
+import jakarta.persistence.Lob;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "cache_entries")
+@IdClass(CacheEntry.CacheEntryPk.class)
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CacheEntry {
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class CacheEntryPk implements Serializable {
+        private String cacheName;
+        private String cacheKey;
+    }
+
+    @Id
+    @Column(name = "cache_name")
+    private String cacheName;
+
+    @Id
+    @Column(name = "cache_key")
+    private String cacheKey;
+
+    // Gzipped JSON of the cached value
+    @Lob
+    @Column(name = "cached_value")
+    private byte[] value;
+
+    // Epoch millis
+    @Column(name = "expires_at")
+    private long expiresAt;
+}
@@ -0,0 +1,20 @@
+package org.animeatsume.dao.persistence;
+
+import org.animeatsume.dao.model.CacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface CacheEntryRepository extends JpaRepository<CacheEntry, CacheEntry.CacheEntryPk> {
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CacheEntry entry WHERE entry.cacheName = :cacheName")
+    int deleteAllByCacheName(@Param("cacheName") String cacheName);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CacheEntry entry WHERE entry.expiresAt < :now")
+    int deleteAllExpiredBefore(@Param("now") long now);
+}
@@ -0,0 +1,23 @@
+package org.animeatsume.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A slice of a show's episode list, as returned from {@code /episodes}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EpisodesPage {
+    private String url;
+    private String title;
+    // Total number of episodes in the show, not just in this page
+    private int episodeCount;
+    private int offset;
+    private int limit;
+    private List<? extends Anchor> episodes;
+}
@@ -14,6 +14,12 @@ import java.util.List;
 @EqualsAndHashCode(callSuper = true)
 public class SearchAnimeResponse extends TitlesAndEpisodes {
     private String error = "";
+    // If the request's time budget ran out before all providers/episode lists finished
+    private boolean incomplete = false;
+
+    public SearchAnimeResponse(String error) {
+        this.error = error;
+    }
 
     public SearchAnimeResponse(List<? extends Anchor> episodes) {
         super(episodes);
@@ -14,9 +14,12 @@ import java.util.stream.Collectors;
 @NoArgsConstructor
 public class TitlesAndEpisodes {
     @Data
+    @NoArgsConstructor
     @EqualsAndHashCode(callSuper = true)
     public static class EpisodesForTitle extends VideoSearchResult {
         private List<? extends Anchor> episodes;
+        // Null until the episode list has been fetched; search results only include episodes for their top shows
+        private Integer episodeCount;
 
         private static List<? extends Anchor> mapAnchorListToVideoSearchResult(List<? extends Anchor> episodes, boolean isDirectSource) {
             return episodes.stream()
@@ -26,6 +29,7 @@ public class TitlesAndEpisodes {
 
         public EpisodesForTitle(String url, String title) {
             this(url, title, new ArrayList<>(), false);
+            this.episodeCount = null;
         }
 
         public EpisodesForTitle(String url, String title, List<? extends Anchor> episodes, boolean areVideosDirectSource) {
@@ -35,15 +39,20 @@ public class TitlesAndEpisodes {
 
         public EpisodesForTitle(String url, String title, List<? extends Anchor> episodes) {
             super(url, title, false);
-            this.episodes = episodes;
+            setEpisodes(episodes);
         }
 
         public EpisodesForTitle(List<? extends Anchor> episodes) {
-            this.episodes = mapAnchorListToVideoSearchResult(episodes, false);
+            setEpisodes(mapAnchorListToVideoSearchResult(episodes, false));
+        }
+
+        public void setEpisodes(List<? extends Anchor> episodes) {
+            this.episodes = episodes;
+            this.episodeCount = episodes == null ? null : episodes.size();
         }
 
         public void setEpisodes(List<? extends Anchor> episodes, boolean areVideosDirectSource) {
-            this.episodes = mapAnchorListToVideoSearchResult(episodes, areVideosDirectSource);
+            setEpisodes(mapAnchorListToVideoSearchResult(episodes, areVideosDirectSource));
         }
     }
 
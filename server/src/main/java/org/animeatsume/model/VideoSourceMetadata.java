@@ -0,0 +1,21 @@
+package org.animeatsume.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What's needed to serve Range requests for a proxied video, fetched once per source URL.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VideoSourceMetadata {
+    private String url;
+    private long contentLength;
+    private String contentType;
+    private boolean acceptsRanges;
+    // Byte offset of the MP4 `moov` atom (the index players need before they can play or seek), or null if unknown.
+    // When it's at the end of the file, players request it right after the first range.
+    private Long moovAtomOffset;
+}
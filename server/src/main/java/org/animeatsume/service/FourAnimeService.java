@@ -5,6 +5,7 @@ import org.animeatsume.model.TitlesAndEpisodes;
 import org.animeatsume.model.TitlesAndEpisodes.EpisodesForTitle;
 import org.animeatsume.model.VideoSearchResult;
 import org.animeatsume.utils.http.CorsProxy;
+import org.animeatsume.utils.http.PooledWebClient;
 import org.animeatsume.utils.http.Requests;
 import org.animeatsume.utils.regex.RegexUtils;
 import org.jsoup.Jsoup;
@@ -16,9 +17,8 @@ import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 
 import java.net.URI;
 import java.util.Arrays;
@@ -29,7 +29,7 @@ import java.util.stream.Collectors;
 @Log4j2
 @Service
 public class FourAnimeService {
-    private static final String ORIGIN = "https://4anime.to";
+    public static final String ORIGIN = "https://4anime.to";
     private static final String SEARCH_URL = ORIGIN + "/wp-admin/admin-ajax.php";
     private static final List<String> DIRECT_SOURCE_VIDEO_ORIGINS = Arrays.asList("https://storage.googleapis.com", "https://[^\\.]+.4animu.me");
     private static final String TITLE_ANCHOR_SELECTOR = "a.name";
@@ -86,37 +86,38 @@ public class FourAnimeService {
         return null;
     }
 
-    @Async
     public CompletableFuture<Void> searchEpisodes(EpisodesForTitle episodesForTitle) {
         log.info("Searching 4anime for episode list at ({}) ...", episodesForTitle.getUrl());
 
-        String showHtml = (String) CorsProxy.doCorsRequest(
+        Mono<Void> episodesSearch = CorsProxy.<String>doCorsRequestAsync(
             HttpMethod.GET,
             URI.create(episodesForTitle.getUrl()),
             URI.create(ORIGIN),
             null,
             getNecessaryRequestHeaders()
-        ).getBody();
-
-        if (showHtml != null) {
-            List<VideoSearchResult> episodeAnchors = Jsoup.parse(showHtml)
-                .select(EPISODE_ANCHOR_SELECTOR)
-                .stream()
-                .map(element -> new VideoSearchResult(
-                    element.attr("href"),
-                    element.text()
-                ))
-                .collect(Collectors.toList());
-
-            episodesForTitle.setEpisodes(episodeAnchors);
-        }
+        ).doOnNext(showHtmlResponse -> {
+            String showHtml = showHtmlResponse.getBody();
+
+            if (showHtml != null) {
+                List<VideoSearchResult> episodeAnchors = Jsoup.parse(showHtml)
+                    .select(EPISODE_ANCHOR_SELECTOR)
+                    .stream()
+                    .map(element -> new VideoSearchResult(
+                        element.attr("href"),
+                        element.text()
+                    ))
+                    .collect(Collectors.toList());
+
+                episodesForTitle.setEpisodes(episodeAnchors);
+            }
 
-        log.info("Obtained {} episodes for ({})",
-            episodesForTitle.getEpisodes().size(),
-            episodesForTitle.getTitle()
-        );
+            log.info("Obtained {} episodes for ({})",
+                episodesForTitle.getEpisodes().size(),
+                episodesForTitle.getTitle()
+            );
+        }).then();
 
-        return CompletableFuture.completedFuture(null);
+        return PooledWebClient.withDeadline(episodesSearch).toFuture();
     }
 
     public VideoSearchResult getVideoForEpisode(String url) {
@@ -181,7 +182,7 @@ public class FourAnimeService {
         try {
             // If we can get the headers from our origin without the CORS proxy,
             // then the client will be able to as well
-            HttpHeaders httpHeaders = new RestTemplate().headForHeaders(videoUrl);
+            HttpHeaders httpHeaders = Requests.getRestTemplate().headForHeaders(videoUrl);
 
             return true;
         } catch (Exception e) {
@@ -46,7 +46,7 @@ public class KissanimeRuService {
     // BrowserEngine is a singleton; improve performance by avoiding making `synchronized` calls in endpoint handling
     private static BrowserEngine browser;
 
-    private static final String KISSANIME_ORIGIN = "https://kissanime.ru";
+    public static final String KISSANIME_ORIGIN = "https://kissanime.ru";
     private static final String ARE_YOU_HUMAN_IMG_PATH = "/Special/CapImg/";
     private static final String TITLE_SEARCH_URL = KISSANIME_ORIGIN + "/Search/SearchSuggestx";
     private static final String ARE_YOU_HUMAN_URL_PATH = "/Special/AreYouHuman2";
@@ -225,7 +225,7 @@ public class KissanimeRuService {
         ResponseEntity<String> searchResponse;
 
         try {
-            searchResponse = new RestTemplate().exchange(
+            searchResponse = Requests.getRestTemplate().exchange(
                 TITLE_SEARCH_URL,
                 HttpMethod.POST,
                 searchHttpEntity,
@@ -280,7 +280,7 @@ public class KissanimeRuService {
         waitForCloudflareToAllowAccessToKissanime();
         log.info("Searching Kissanime for episode list at ({}) ...", showUrl);
 
-        String showHtml = new RestTemplate().exchange(
+        String showHtml = Requests.getRestTemplate().exchange(
             showUrl,
             HttpMethod.GET,
             new HttpEntity<>(null, getNecessaryRequestHeaders()),
@@ -348,7 +348,7 @@ public class KissanimeRuService {
     public KissanimeVideoHostResponse getBypassAreYouHumanPromptContent(String url) {
         log.info("Getting AreYouHuman images and prompt texts to bypass ({})", url);
         waitForCloudflareToAllowAccessToKissanime();
-        String areYouHumanHtml = new RestTemplate().exchange(
+        String areYouHumanHtml = Requests.getRestTemplate().exchange(
             url,
             HttpMethod.GET,
             new HttpEntity<>(null, getNecessaryRequestHeaders()),
@@ -420,7 +420,7 @@ public class KissanimeRuService {
         String areYouHumanImgUrlPrefix = KISSANIME_ORIGIN + ARE_YOU_HUMAN_IMG_PATH;
         String url = areYouHumanImgUrlPrefix + imageId;
 
-        return new RestTemplate().exchange(
+        return Requests.getRestTemplate().exchange(
             url,
             HttpMethod.GET,
             new HttpEntity<>(null, getNecessaryRequestHeaders()),
@@ -447,7 +447,7 @@ public class KissanimeRuService {
         ResponseEntity<String> response;
 
         try {
-            response = new RestTemplate().exchange(
+            response = Requests.getRestTemplate().exchange(
                 episodeUrl,
                 HttpMethod.GET,
                 new HttpEntity<>(null, getNecessaryRequestHeaders()),
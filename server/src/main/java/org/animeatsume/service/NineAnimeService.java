@@ -7,9 +7,12 @@ import org.animeatsume.model.TitlesAndEpisodes.EpisodesForTitle;
 import org.animeatsume.model.VideoSearchResult;
 import org.animeatsume.model.nineanime.NineAnimeEpisodeHostResponse;
 import org.animeatsume.model.nineanime.NineAnimeSearchResponse;
+import org.animeatsume.utils.Deadline;
 import org.animeatsume.utils.ObjectUtils;
 import org.animeatsume.utils.SeleniumService;
 import org.animeatsume.utils.http.CorsProxy;
+import org.animeatsume.utils.http.PooledWebClient;
+import org.animeatsume.utils.http.Requests;
 import org.animeatsume.utils.http.UriParser;
 import org.animeatsume.utils.regex.RegexUtils;
 import org.jsoup.Jsoup;
@@ -23,7 +26,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 
 import java.net.URI;
 import java.net.URLEncoder;
@@ -38,7 +41,7 @@ import java.util.stream.Collectors;
 @Log4j2
 @Service
 public class NineAnimeService {
-    private static final String ORIGIN = "https://123anime.info";
+    public static final String ORIGIN = "https://123anime.info";
     private static final String SEARCH_URL = ORIGIN + "/ajax/film/search?sort=year:desc&keyword=";
     private static final String SHOW_INFO_URL = ORIGIN + "/ajax/film/sv?id=";
     private static final String EPISODES_INFO_URL = ORIGIN + "/ajax/episode/info?epr=";
@@ -145,7 +148,6 @@ public class NineAnimeService {
         return null;
     }
 
-    @Async
     public CompletableFuture<EpisodesForTitle> searchEpisodes(EpisodesForTitle episodesForTitle) {
         /*
          * e.g. "https://123anime.info/ajax/episode/info?epr=naruto-shippuden/001/5"
@@ -162,21 +164,25 @@ public class NineAnimeService {
 
         log.info("Searching <{}> for episode list at ({}) ...", episodesForTitle.getUrl(), showInfoUrl);
 
-        String showSplashPageResponse = (String) CorsProxy.doCorsRequest(
+        Mono<EpisodesForTitle> episodesSearch = CorsProxy.<String>doCorsRequestAsync(
             HttpMethod.GET,
             showInfoUrl,
             URI.create(ORIGIN),
             null,
             getSearchHeaders()
-        ).getBody();
+        ).map(showSplashPageResponse -> parseEpisodes(episodesForTitle, showId, showInfoUrl, showSplashPageResponse.getBody()));
 
+        return PooledWebClient.withDeadline(episodesSearch).toFuture();
+    }
+
+    private EpisodesForTitle parseEpisodes(EpisodesForTitle episodesForTitle, String showId, URI showInfoUrl, String showSplashPageResponse) {
         NineAnimeSearchResponse showSplashPage = NineAnimeSearchResponse.fromString(showSplashPageResponse);
         Elements showEpisodesAnchors = Jsoup.parse(showSplashPage.getHtml()).select(".episodes.range li a");
 
         log.info("Num episodes found at <{}>: {}", showInfoUrl, showEpisodesAnchors.size());
 
         if (showEpisodesAnchors.size() < 1) {
-            return null;
+            return episodesForTitle;
         }
 
         List<Anchor> episodeAnchors = showEpisodesAnchors.stream().map(anchor -> {
@@ -203,7 +209,7 @@ public class NineAnimeService {
 
         log.info("episodesForTitle length: {}", episodesForTitle.getEpisodes().size());
 
-        return CompletableFuture.completedFuture(episodesForTitle);
+        return episodesForTitle;
     }
 
     public VideoSearchResult getVideosForEpisode(String url) {
@@ -281,6 +287,14 @@ public class NineAnimeService {
             videoElemSrc == null
             || videoElemSrc.isBlank()
         ) {
+            Deadline deadline = Deadline.current();
+
+            if (deadline != null && deadline.isExpired()) {
+                log.info("Request deadline expired while waiting for video src from <{}>, falling back to the host URL", primaryHostUrl);
+                videoUrlDirect = primaryHostUrl;
+                break;
+            }
+
             videoElemSrc = videoElem.getAttribute("src");
 
             log.info("IN WHILE: videoElem.getAttribute(\"src\"): {}", videoElemSrc);
@@ -494,7 +508,7 @@ public class NineAnimeService {
         try {
             // If we can get the headers from our origin without the CORS proxy,
             // then the client will be able to as well
-            HttpHeaders httpHeaders = new RestTemplate().headForHeaders(videoUrl);
+            HttpHeaders httpHeaders = Requests.getRestTemplate().headForHeaders(videoUrl);
 
             return true;
         } catch (Exception e) {
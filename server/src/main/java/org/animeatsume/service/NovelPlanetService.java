@@ -39,7 +39,7 @@ public class NovelPlanetService {
         HttpHeaders redirectorHeaders = Requests.copyHttpHeaders(requestEntity.getHeaders());
         redirectorHeaders.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE);
 
-        ResponseEntity<NovelPlanetSourceResponse> response = new RestTemplate().exchange(
+        ResponseEntity<NovelPlanetSourceResponse> response = Requests.getRestTemplate().exchange(
             apiUrl,
             HttpMethod.POST,
             new HttpEntity<>(requestEntity.getBody(), redirectorHeaders),
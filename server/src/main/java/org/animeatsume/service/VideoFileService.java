@@ -6,7 +6,6 @@ import org.springframework.http.*;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StreamUtils;
-import org.springframework.web.client.RestTemplate;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -104,10 +103,8 @@ public class VideoFileService {
         }
 
         File newVideoFile = getVideoFile(showName, episodeName, quality);
-        RestTemplate mp4Request = new RestTemplate();
-        Requests.addAcceptableMediaTypes(mp4Request, MediaType.parseMediaType("video/mp4"));
-
-        Boolean success = mp4Request.execute(
+        // `execute()` streams the raw response body, so no message converter for video/mp4 is needed
+        Boolean success = Requests.getRestTemplate().execute(
             url,
             HttpMethod.GET,
             null,
@@ -0,0 +1,185 @@
+package org.animeatsume.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Chooses how many bytes to serve for each Range request of a proxied video, per stream, instead of a fixed size.
+ * A stream is one client's playback of a video, so viewers of the same episode don't look like seeks to each other,
+ * while the throughput of a video's source is shared by all of them.
+ *
+ * Ranges are sized to hold enough video to last until the client's next request (based on the video's estimated
+ * bitrate and how often the client has been asking), and grow on links fast enough to fetch more within
+ * {@code target-fetch-time}. The first range of a stream, and the first one after a seek, is kept small so
+ * playback starts as soon as possible; ranges then grow by at most double each request.
+ */
+@Log4j2
+@Service
+public class VideoRangeSizer {
+    // Weight of the newest sample in the throughput/cadence moving averages
+    private static final double SMOOTHING_FACTOR = 0.3;
+
+    private final long minRangeSize;
+    private final long maxRangeSize;
+    private final Duration targetFetchTime;
+    private final Duration minBufferTime;
+    private final Duration typicalVideoDuration;
+    // "<client> <video URL>" -> stats of that client's playback
+    private final Cache<String, StreamStats> streams;
+    // Video URL -> stats of fetching it from its source
+    private final Cache<String, SourceStats> sources;
+
+    public VideoRangeSizer(
+        @Value("${org.animeatsume.video.range-sizing.min-range-size}") DataSize minRangeSize,
+        @Value("${org.animeatsume.video.range-sizing.max-range-size}") DataSize maxRangeSize,
+        @Value("${org.animeatsume.video.range-sizing.target-fetch-time}") Duration targetFetchTime,
+        @Value("${org.animeatsume.video.range-sizing.min-buffer-time}") Duration minBufferTime,
+        @Value("${org.animeatsume.video.range-sizing.typical-video-duration}") Duration typicalVideoDuration,
+        @Value("${org.animeatsume.video.range-sizing.stream-idle-timeout}") Duration streamIdleTimeout
+    ) {
+        this.minRangeSize = minRangeSize.toBytes();
+        this.maxRangeSize = maxRangeSize.toBytes();
+        this.targetFetchTime = targetFetchTime;
+        this.minBufferTime = minBufferTime;
+        this.typicalVideoDuration = typicalVideoDuration;
+        this.streams = Caffeine.newBuilder()
+            .expireAfterAccess(streamIdleTimeout)
+            .maximumSize(10_000)
+            .build();
+        this.sources = Caffeine.newBuilder()
+            .expireAfterAccess(streamIdleTimeout)
+            .maximumSize(10_000)
+            .build();
+    }
+
+    /**
+     * Size of the range to serve for a request starting at {@code rangeStart}.
+     * Call {@link #recordServedRange(String, String, long, long)} once the range is known so that the next request
+     * can tell whether the client is playing linearly or seeked.
+     *
+     * @param clientId Identifies the client's stream of the video (e.g. its remote address).
+     */
+    public long getRangeSize(String clientId, String videoUrl, long rangeStart, long contentLength) {
+        StreamStats stream = getStream(clientId, videoUrl);
+        double throughput = getThroughput(videoUrl);
+
+        synchronized (stream) {
+            long now = System.currentTimeMillis();
+            boolean isLinear = stream.nextExpectedStart >= 0 && rangeStart == stream.nextExpectedStart;
+
+            if (isLinear && stream.lastRequestTimeMs > 0) {
+                stream.cadenceMs = smooth(stream.cadenceMs, now - stream.lastRequestTimeMs);
+            }
+
+            stream.consecutiveLinearRequests = isLinear ? stream.consecutiveLinearRequests + 1 : 0;
+            stream.lastRequestTimeMs = now;
+
+            if (!isLinear) {
+                // Start (or seek): a small range gets the first frames on screen quickly
+                stream.lastRangeSize = minRangeSize;
+
+                return minRangeSize;
+            }
+
+            // Bytes/ms the video plays at, e.g. a 24 minute 1080p episode is ~16.5 MB/min
+            double bitrate = (double) contentLength / typicalVideoDuration.toMillis();
+            double playbackBased = bitrate * Math.max(minBufferTime.toMillis(), stream.cadenceMs);
+            double linkBased = throughput * targetFetchTime.toMillis();
+            long rangeSize = (long) Math.max(playbackBased, linkBased);
+
+            rangeSize = Math.min(rangeSize, stream.lastRangeSize * 2);
+            rangeSize = Math.max(minRangeSize, Math.min(maxRangeSize, rangeSize));
+
+            stream.lastRangeSize = rangeSize;
+
+            log.debug("Range size for video ({}): {} bytes (throughput = {} B/ms, cadence = {} ms)",
+                videoUrl,
+                rangeSize,
+                throughput,
+                stream.cadenceMs
+            );
+
+            return rangeSize;
+        }
+    }
+
+    /**
+     * @return If the stream's latest request continued where the previous one ended (i.e. the video is playing rather than seeking).
+     */
+    public boolean isPlayingLinearly(String clientId, String videoUrl) {
+        StreamStats stream = streams.getIfPresent(getStreamKey(clientId, videoUrl));
+
+        if (stream == null) {
+            return false;
+        }
+
+        synchronized (stream) {
+            return stream.consecutiveLinearRequests > 0;
+        }
+    }
+
+    public void recordServedRange(String clientId, String videoUrl, long rangeStart, long rangeEnd) {
+        StreamStats stream = getStream(clientId, videoUrl);
+
+        synchronized (stream) {
+            stream.nextExpectedStart = rangeEnd + 1;
+        }
+    }
+
+    /**
+     * Records how long it took to download {@code numBytes} of the video from its source, for all of its streams.
+     */
+    public void recordUpstreamFetch(String videoUrl, long numBytes, long durationMs) {
+        SourceStats source = sources.get(videoUrl, url -> new SourceStats());
+
+        synchronized (source) {
+            source.throughput = smooth(source.throughput, (double) numBytes / Math.max(1, durationMs));
+        }
+    }
+
+    private StreamStats getStream(String clientId, String videoUrl) {
+        return streams.get(getStreamKey(clientId, videoUrl), key -> new StreamStats());
+    }
+
+    private double getThroughput(String videoUrl) {
+        SourceStats source = sources.getIfPresent(videoUrl);
+
+        if (source == null) {
+            return 0;
+        }
+
+        synchronized (source) {
+            return source.throughput;
+        }
+    }
+
+    private static String getStreamKey(String clientId, String videoUrl) {
+        return clientId + " " + videoUrl;
+    }
+
+    private static double smooth(double average, double sample) {
+        return average <= 0
+            ? sample
+            : (SMOOTHING_FACTOR * sample) + ((1 - SMOOTHING_FACTOR) * average);
+    }
+
+    private static class StreamStats {
+        private long nextExpectedStart = -1;
+        private long lastRequestTimeMs = 0;
+        private long lastRangeSize = 0;
+        private int consecutiveLinearRequests = 0;
+        // Moving average; 0 until the first sample
+        private double cadenceMs = 0;
+    }
+
+    private static class SourceStats {
+        // Moving average in B/ms; 0 until the first sample
+        private double throughput = 0;
+    }
+}
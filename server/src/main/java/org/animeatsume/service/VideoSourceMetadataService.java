@@ -0,0 +1,226 @@
+package org.animeatsume.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.ApplicationConfig;
+import org.animeatsume.model.VideoSourceMetadata;
+import org.animeatsume.utils.SingleFlight;
+import org.animeatsume.utils.http.Requests;
+import org.animeatsume.utils.http.UriParser;
+import org.animeatsume.utils.regex.RegexUtils;
+import org.apache.hc.core5.http.io.EofSensorInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Looks up (and caches) the {@link VideoSourceMetadata} of proxied videos so that Range requests
+ * don't each cost an extra HEAD request to the video's source.
+ *
+ * Metadata is read from a single small Range request to the start of the video rather than a HEAD request
+ * since that also shows whether the source supports ranges and includes the first MP4 boxes.
+ */
+@Log4j2
+@Service
+public class VideoSourceMetadataService {
+    private static final String MOOV_ATOM_TYPE = "moov";
+    private static final int MP4_BOX_HEADER_LENGTH = 8;
+    private static final int MP4_LARGE_BOX_HEADER_LENGTH = 16;
+    // Real MP4s only have a handful of top-level boxes (ftyp, moov, mdat, free, ...)
+    private static final int MAX_MP4_BOXES_TO_SEARCH = 16;
+
+    private final SingleFlight<String, VideoSourceMetadata> metadataLookupsInFlight = new SingleFlight<>();
+
+    @Value("${org.animeatsume.video.metadata-probe-size}")
+    DataSize probeSize;
+
+    /**
+     * @return The video's metadata, or {@code null} if its source couldn't be reached.
+     */
+    @Cacheable(cacheNames = ApplicationConfig.VIDEO_SOURCE_METADATA_CACHE_NAME, unless = "#result == null")
+    public VideoSourceMetadata getMetadata(String videoUrl) {
+        return metadataLookupsInFlight.run(videoUrl, () -> {
+            try {
+                return fetchMetadata(videoUrl);
+            } catch (RestClientException | IllegalArgumentException e) {
+                log.error("Could not get metadata of video ({}). Error = {}", videoUrl, e.getMessage());
+
+                return null;
+            }
+        });
+    }
+
+    private VideoSourceMetadata fetchMetadata(String videoUrl) {
+        URI videoUri = URI.create(videoUrl);
+        ProbeResponse probe = readBytes(videoUri, 0, (int) probeSize.toBytes());
+
+        if (probe == null) {
+            return null;
+        }
+
+        HttpHeaders headers = probe.headers;
+        boolean acceptsRanges = probe.status == HttpStatus.PARTIAL_CONTENT;
+        long contentLength = acceptsRanges
+            ? getContentRangeLength(headers)
+            : headers.getContentLength();
+
+        if (contentLength <= 0) {
+            log.info("Video ({}) did not include its content length", videoUrl);
+
+            return null;
+        }
+
+        MediaType contentType = headers.getContentType();
+
+        if (contentType == null || MediaType.APPLICATION_OCTET_STREAM.equalsTypeAndSubtype(contentType)) {
+            contentType = MediaTypeFactory.getMediaType(videoUri.getPath()).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        }
+
+        Long moovAtomOffset = findMoovAtomOffset(videoUri, probe.body, contentLength, acceptsRanges);
+        VideoSourceMetadata metadata = new VideoSourceMetadata(
+            videoUrl,
+            contentLength,
+            contentType.toString(),
+            acceptsRanges,
+            moovAtomOffset
+        );
+
+        log.info("Video source metadata: {}", metadata);
+
+        return metadata;
+    }
+
+    /**
+     * Walks the top-level MP4 boxes (4-byte size + 4-byte type headers) until the {@code moov} atom is found.
+     * Boxes beyond the probed bytes are read with tiny Range requests for just their headers.
+     */
+    private Long findMoovAtomOffset(URI videoUri, byte[] probedBytes, long contentLength, boolean acceptsRanges) {
+        long boxOffset = 0;
+
+        for (int i = 0; i < MAX_MP4_BOXES_TO_SEARCH && boxOffset + MP4_BOX_HEADER_LENGTH <= contentLength; i++) {
+            byte[] boxHeader;
+
+            if (boxOffset + MP4_LARGE_BOX_HEADER_LENGTH <= probedBytes.length) {
+                boxHeader = new byte[MP4_LARGE_BOX_HEADER_LENGTH];
+                System.arraycopy(probedBytes, (int) boxOffset, boxHeader, 0, MP4_LARGE_BOX_HEADER_LENGTH);
+            } else if (acceptsRanges) {
+                ProbeResponse boxHeaderResponse = readBytes(videoUri, boxOffset, MP4_LARGE_BOX_HEADER_LENGTH);
+
+                if (boxHeaderResponse == null || boxHeaderResponse.body.length < MP4_BOX_HEADER_LENGTH) {
+                    return null;
+                }
+
+                boxHeader = boxHeaderResponse.body;
+            } else {
+                return null;
+            }
+
+            ByteBuffer boxHeaderBuffer = ByteBuffer.wrap(boxHeader);
+            long boxSize = Integer.toUnsignedLong(boxHeaderBuffer.getInt());
+            String boxType = new String(boxHeader, 4, 4, StandardCharsets.US_ASCII);
+
+            if (MOOV_ATOM_TYPE.equals(boxType)) {
+                return boxOffset;
+            }
+
+            if (boxSize == 1 && boxHeader.length >= MP4_LARGE_BOX_HEADER_LENGTH) {
+                boxSize = boxHeaderBuffer.getLong(MP4_BOX_HEADER_LENGTH);
+            } else if (boxSize == 0) {
+                // Box extends to the end of the file
+                return null;
+            }
+
+            if (boxSize < MP4_BOX_HEADER_LENGTH) {
+                // Not an MP4 (or a corrupted one)
+                return null;
+            }
+
+            boxOffset += boxSize;
+        }
+
+        return null;
+    }
+
+    /**
+     * Requests {@code length} bytes starting at {@code offset}, only reading that many bytes of the response
+     * in case the source ignores {@code Range} and sends the whole video.
+     */
+    private ProbeResponse readBytes(URI videoUri, long offset, int length) {
+        String origin = UriParser.getOrigin(videoUri);
+
+        return Requests.getRestTemplate().execute(
+            videoUri,
+            HttpMethod.GET,
+            request -> {
+                HttpHeaders requestHeaders = request.getHeaders();
+
+                requestHeaders.setAccept(List.of(MediaType.ALL));
+                requestHeaders.set(HttpHeaders.ORIGIN, origin);
+                requestHeaders.set(HttpHeaders.REFERER, origin);
+                requestHeaders.set(HttpHeaders.RANGE, String.format("bytes=%d-%d", offset, offset + length - 1));
+                // Byte ranges only line up with the source's file if it isn't compressed in transit
+                requestHeaders.set(HttpHeaders.ACCEPT_ENCODING, "identity");
+            },
+            response -> {
+                HttpStatus status = HttpStatus.valueOf(response.getStatusCode().value());
+                InputStream body = response.getBody();
+                byte[] bytes;
+
+                try {
+                    bytes = body.readNBytes(length);
+                } finally {
+                    // Closing the body normally reads the rest of it so the connection can be reused,
+                    // which would download the whole video if the source ignored `Range`
+                    if (status != HttpStatus.PARTIAL_CONTENT) {
+                        abortConnection(body);
+                    }
+
+                    body.close();
+                }
+
+                return new ProbeResponse(status, Requests.copyHttpHeaders(response.getHeaders()), bytes);
+            }
+        );
+    }
+
+    /**
+     * Drops the response's connection instead of reading the rest of its body.
+     * Apache's response bodies are {@link EofSensorInputStream}s unless they're decompressed, which we
+     * don't request, so other streams are just closed as usual.
+     */
+    private static void abortConnection(InputStream body) throws IOException {
+        if (body instanceof EofSensorInputStream connectionBody) {
+            connectionBody.abortConnection();
+        }
+    }
+
+    // e.g. `Content-Range: bytes 0-65535/123456789`
+    private static long getContentRangeLength(HttpHeaders headers) {
+        List<String> contentLengthMatches = RegexUtils.getFirstMatchGroups("/(\\d+)$", headers.getFirst(HttpHeaders.CONTENT_RANGE));
+
+        return contentLengthMatches.isEmpty()
+            ? -1
+            : Long.parseLong(contentLengthMatches.get(1));
+    }
+
+    @AllArgsConstructor
+    private static class ProbeResponse {
+        private final HttpStatus status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+    }
+}
@@ -0,0 +1,205 @@
+package org.animeatsume.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.ApplicationConfig;
+import org.animeatsume.model.VideoSourceMetadata;
+import org.animeatsume.utils.SingleFlight;
+import org.animeatsume.utils.cache.VideoChunkCache;
+import org.animeatsume.utils.http.CorsProxy;
+import org.animeatsume.utils.http.Requests;
+import org.animeatsume.utils.http.UriParser;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Serves Range requests for proxied (not downloaded) videos out of the {@link VideoChunkCache},
+ * only fetching the aligned chunks that aren't cached yet from the video's source.
+ */
+@Log4j2
+@Service
+public class VideoStreamService {
+    @Autowired
+    VideoChunkCache videoChunkCache;
+
+    @Autowired
+    VideoSourceMetadataService videoSourceMetadataService;
+
+    @Autowired
+    VideoRangeSizer videoRangeSizer;
+
+    @Autowired
+    @Qualifier(ApplicationConfig.READ_AHEAD_EXECUTOR_NAME)
+    Executor readAheadExecutor;
+
+    @Value("${org.animeatsume.video.read-ahead-chunks}")
+    int readAheadChunks;
+
+    // Concurrent requests for the same chunk (e.g. the browser re-requesting a range) share one download
+    private final SingleFlight<String, byte[]> chunksInFlight = new SingleFlight<>();
+
+    /**
+     * @param clientId Identifies the client's stream of the video (see {@link VideoRangeSizer}).
+     * @param videoUrl Source URL of the video.
+     * @param requestHeaders The client's request headers, for its {@code Range}.
+     * @return A 206 response with the requested (or default-sized) range of the video.
+     */
+    public ResponseEntity<Resource> getVideoRange(String clientId, String videoUrl, HttpHeaders requestHeaders) {
+        VideoSourceMetadata metadata = videoSourceMetadataService.getMetadata(videoUrl);
+
+        if (metadata == null) {
+            throw new ResourceAccessException("Could not get the metadata of video (" + videoUrl + ")");
+        }
+
+        if (!metadata.isAcceptsRanges()) {
+            throw new ResourceAccessException("Video (" + videoUrl + ") does not support Range requests");
+        }
+
+        long contentLength = metadata.getContentLength();
+        long rangeSize = videoRangeSizer.getRangeSize(clientId, videoUrl, Requests.getRangeStart(requestHeaders, contentLength), contentLength);
+        List<Long> ranges = Requests.getContentRangeStartAndEndAndLength(contentLength, rangeSize, requestHeaders, false);
+
+        long rangeStart = ranges.get(0);
+        long rangeEnd = ranges.get(1);
+        byte[] rangeBytes = readRange(videoUrl, rangeStart, rangeEnd, contentLength);
+
+        videoRangeSizer.recordServedRange(clientId, videoUrl, rangeStart, rangeEnd);
+        readAhead(clientId, metadata, rangeStart, rangeEnd);
+
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        responseHeaders.set(HttpHeaders.CONTENT_RANGE, String.format("bytes %d-%d/%d", rangeStart, rangeEnd, contentLength));
+        responseHeaders.setContentType(MediaType.parseMediaType(metadata.getContentType()));
+
+        return new ResponseEntity<>(new ByteArrayResource(rangeBytes), responseHeaders, HttpStatus.PARTIAL_CONTENT);
+    }
+
+    /**
+     * Fetches the chunks after the range being served into the {@link VideoChunkCache} in the background,
+     * so the client's next request doesn't wait on the video's source.
+     * Only done for streams that are playing linearly since the next request after a seek is unpredictable.
+     *
+     * Also fetches the MP4 {@code moov} atom when serving the start of a video that has it at the end,
+     * since players request it right after the first range.
+     */
+    private void readAhead(String clientId, VideoSourceMetadata metadata, long rangeStart, long rangeEnd) {
+        String videoUrl = metadata.getUrl();
+        int chunkSize = videoChunkCache.getChunkSize();
+        long lastChunkIndex = (metadata.getContentLength() - 1) / chunkSize;
+        List<Long> chunkIndicesToFetch = new ArrayList<>();
+
+        if (rangeStart == 0 && metadata.getMoovAtomOffset() != null && metadata.getMoovAtomOffset() > rangeEnd) {
+            chunkIndicesToFetch.add(metadata.getMoovAtomOffset() / chunkSize);
+        }
+
+        if (videoRangeSizer.isPlayingLinearly(clientId, videoUrl)) {
+            long nextChunkIndex = (rangeEnd + 1) / chunkSize;
+
+            for (long chunkIndex = nextChunkIndex; chunkIndex < nextChunkIndex + readAheadChunks && chunkIndex <= lastChunkIndex; chunkIndex++) {
+                chunkIndicesToFetch.add(chunkIndex);
+            }
+        }
+
+        // The read-ahead executor's queue is bounded and drops tasks when full, which bounds how much is read ahead at once.
+        // Fetched chunks go into the chunk cache's (bounded) memory tier, so cached ones aren't worth a queue slot.
+        chunkIndicesToFetch.stream()
+            .filter(chunkIndex -> !videoChunkCache.contains(videoUrl, chunkIndex))
+            .forEach(chunkIndex -> readAheadExecutor.execute(() -> {
+                try {
+                    getChunk(videoUrl, chunkIndex, metadata.getContentLength());
+                } catch (RestClientException e) {
+                    log.debug("Could not read ahead chunk {} of video ({}). Error = {}", chunkIndex, videoUrl, e.getMessage());
+                }
+            }));
+    }
+
+    private byte[] readRange(String videoUrl, long rangeStart, long rangeEnd, long contentLength) {
+        int chunkSize = videoChunkCache.getChunkSize();
+        long firstChunkIndex = rangeStart / chunkSize;
+        long lastChunkIndex = rangeEnd / chunkSize;
+        ByteArrayOutputStream rangeBytes = new ByteArrayOutputStream((int) (rangeEnd - rangeStart + 1));
+
+        for (long chunkIndex = firstChunkIndex; chunkIndex <= lastChunkIndex; chunkIndex++) {
+            byte[] chunk = getChunk(videoUrl, chunkIndex, contentLength);
+            long chunkStart = chunkIndex * chunkSize;
+            int offsetInChunk = (int) (Math.max(rangeStart, chunkStart) - chunkStart);
+            int endInChunk = (int) (Math.min(rangeEnd, chunkStart + chunk.length - 1) - chunkStart);
+
+            rangeBytes.write(chunk, offsetInChunk, endInChunk - offsetInChunk + 1);
+        }
+
+        return rangeBytes.toByteArray();
+    }
+
+    private byte[] getChunk(String videoUrl, long chunkIndex, long contentLength) {
+        byte[] cachedChunk = videoChunkCache.get(videoUrl, chunkIndex);
+
+        if (cachedChunk != null) {
+            return cachedChunk;
+        }
+
+        return chunksInFlight.run(videoUrl + "#" + chunkIndex, () -> {
+            byte[] chunk = fetchChunk(videoUrl, chunkIndex, contentLength);
+
+            videoChunkCache.put(videoUrl, chunkIndex, chunk);
+
+            return chunk;
+        });
+    }
+
+    private byte[] fetchChunk(String videoUrl, long chunkIndex, long contentLength) {
+        int chunkSize = videoChunkCache.getChunkSize();
+        long chunkStart = chunkIndex * chunkSize;
+        long chunkEnd = Math.min(chunkStart + chunkSize, contentLength) - 1;
+
+        HttpHeaders chunkHeaders = new HttpHeaders();
+        chunkHeaders.setAccept(List.of(MediaType.ALL));
+        chunkHeaders.set(HttpHeaders.RANGE, String.format("bytes=%d-%d", chunkStart, chunkEnd));
+        // Byte ranges only line up with the source's file if it isn't compressed in transit
+        chunkHeaders.set(HttpHeaders.ACCEPT_ENCODING, "identity");
+
+        URI videoUri = URI.create(videoUrl);
+        String origin = UriParser.getOrigin(videoUri);
+        HttpEntity<Object> chunkRequest = CorsProxy.getCorsEntity(null, origin, origin, null, chunkHeaders, false);
+
+        log.debug("Fetching chunk {} (bytes {}-{}) of video ({})", chunkIndex, chunkStart, chunkEnd, videoUrl);
+
+        long fetchStartTime = System.currentTimeMillis();
+        ResponseEntity<byte[]> chunkResponse = Requests.getRestTemplate().exchange(videoUri, HttpMethod.GET, chunkRequest, byte[].class);
+        byte[] chunk = chunkResponse.getBody();
+
+        if (chunk != null) {
+            videoRangeSizer.recordUpstreamFetch(videoUrl, chunk.length, System.currentTimeMillis() - fetchStartTime);
+        }
+
+        // Sources that ignore `Range` return the whole video, which can't be cached as a chunk
+        if (chunkResponse.getStatusCode() != HttpStatus.PARTIAL_CONTENT || chunk == null || chunk.length != chunkEnd - chunkStart + 1) {
+            throw new ResourceAccessException(String.format(
+                "Video (%s) did not return the requested range (bytes %d-%d). Status = %s",
+                videoUrl,
+                chunkStart,
+                chunkEnd,
+                chunkResponse.getStatusCode()
+            ));
+        }
+
+        return chunk;
+    }
+}
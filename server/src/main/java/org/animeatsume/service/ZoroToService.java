@@ -9,6 +9,8 @@ import org.animeatsume.model.ZoroToEpisodes;
 import org.animeatsume.model.ZoroToShowResponse;
 import org.animeatsume.model.ZoroToStreamingSource;
 import org.animeatsume.utils.http.CorsProxy;
+import org.animeatsume.utils.http.PooledWebClient;
+import org.animeatsume.utils.http.Requests;
 import org.animeatsume.utils.regex.RegexUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -21,7 +23,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 
 import java.net.URI;
 import java.net.URLEncoder;
@@ -135,64 +137,44 @@ public class ZoroToService {
         return null;
     }
 
-    @Async
     public CompletableFuture<EpisodesForTitle> searchEpisodes(EpisodesForTitle episodesForTitle) {
         log.info("Searching <{}> for episode list at ({}) ...", ORIGIN, episodesForTitle.getUrl());
 
-        String showSplashPage = (String) CorsProxy.doCorsRequest(
+        Mono<EpisodesForTitle> episodesSearch = CorsProxy.<String>doCorsRequestAsync(
             HttpMethod.GET,
             URI.create(episodesForTitle.getUrl()),
             URI.create(ORIGIN),
             null,
             getSearchHeaders()
-        ).getBody();
+        ).flatMap(showSplashPageResponse -> {
+            String showSplashPage = showSplashPageResponse.getBody();
 
-        if (showSplashPage == null) {
-            return CompletableFuture.completedFuture(episodesForTitle);
-        }
+            if (showSplashPage == null) {
+                return Mono.just(episodesForTitle);
+            }
 
-        Element watchNowButton = Jsoup.parse(showSplashPage).select(".film-buttons .btn-play").first();
+            Element watchNowButton = Jsoup.parse(showSplashPage).select(".film-buttons .btn-play").first();
 
-        if (watchNowButton == null) {
-            return CompletableFuture.completedFuture(episodesForTitle);
-        }
+            if (watchNowButton == null) {
+                return Mono.just(episodesForTitle);
+            }
 
-        // String showEpisodesPageHtml = (String) CorsProxy.doCorsRequest(
-        //     HttpMethod.GET,
-        //     URI.create(getUrlWithOrigin(watchNowButton.attr("href"))),
-        //     URI.create(ORIGIN),
-        //     null,
-        //     getSearchHeaders()
-        // ).getBody();
-        //
-        // if (showEpisodesPageHtml == null || showEpisodesPageHtml.isEmpty()) {
-        //     return CompletableFuture.completedFuture(episodesForTitle);
-        // }
-
-        // ResponseEntity<?> streamingIframesResponse = CorsProxy.doCorsRequest(
-        //     HttpMethod.GET,
-        //     URI.create("https://zoro.to/ajax/v2/episode/servers?episodeId=" + watchNowButton.attr("href")),
-        //     URI.create(ORIGIN),
-        //     null,
-        //     getSearchHeaders()
-        // );
-
-
-        String showId = RegexUtils.getFirstMatchGroups("\\d+$", watchNowButton.attr("href")).get(0);
-
-        // HttpHeaders serversAndEpisodesRequestHeaders = new HttpHeaders();
-        // serversAndEpisodesRequestHeaders.add(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
-        ResponseEntity<?> serversAndEpisodesResponse = CorsProxy.doCorsRequest(
-            HttpMethod.GET,
-            URI.create(ORIGIN + "/ajax/v2/episode/list/" + showId),
-            URI.create(ORIGIN),
-            null,
-            getSearchHeaders()
-        );
+            String showId = RegexUtils.getFirstMatchGroups("\\d+$", watchNowButton.attr("href")).get(0);
+
+            return CorsProxy.<String>doCorsRequestAsync(
+                HttpMethod.GET,
+                URI.create(ORIGIN + "/ajax/v2/episode/list/" + showId),
+                URI.create(ORIGIN),
+                null,
+                getSearchHeaders()
+            ).map(serversAndEpisodesResponse -> {
+                List<Anchor> episodesPages = ZoroToEpisodes.fromString(serversAndEpisodesResponse.getBody()).getWatchAnchors(ORIGIN);
 
-        List<Anchor> episodesPages = ZoroToEpisodes.fromString((String) serversAndEpisodesResponse.getBody()).getWatchAnchors(ORIGIN);
+                episodesForTitle.setEpisodes(episodesPages, false);
 
-        episodesForTitle.setEpisodes(episodesPages, false);
+                return episodesForTitle;
+            });
+        });
 
         // TODO - HTML doesn't have the episodes until JavaScript injects elements onto the page
         //  I think it goes through Google Tag manager but it's so obfuscated, it's hard to tell
@@ -200,7 +182,7 @@ public class ZoroToService {
 //
 //        ObjectUtils.getAllCompletableFutureResults(directVideoUrls);
 
-        return CompletableFuture.completedFuture(episodesForTitle);
+        return PooledWebClient.withDeadline(episodesSearch).toFuture();
     }
 
     @Async
@@ -298,7 +280,7 @@ public class ZoroToService {
         try {
             // If we can get the headers from our origin without the CORS proxy,
             // then the client will be able to as well
-            HttpHeaders httpHeaders = new RestTemplate().headForHeaders(videoUrl);
+            HttpHeaders httpHeaders = Requests.getRestTemplate().headForHeaders(videoUrl);
 
             return true;
         } catch (Exception e) {
@@ -4,7 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.web.client.RestTemplate;
+import org.animeatsume.utils.http.Requests;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -82,7 +82,7 @@ public class AppProxy {
     }
 
     public static String getIp() {
-        return new RestTemplate()
+        return Requests.getRestTemplate()
             .getForEntity(IP_TEST_URL, String.class)
             .getBody();
     }
@@ -110,7 +110,7 @@ public class AppProxy {
             .map(option -> String.format("%s=%s", option[0], option[1]))
             .collect(Collectors.joining("&"));
         String proxyGeneratorUrl = RESIDENTIAL_PROXY_GEN_URL + "?" + urlOptions;
-        String newProxiesIpsAndPorts = new RestTemplate()
+        String newProxiesIpsAndPorts = Requests.getRestTemplate()
             .getForEntity(proxyGeneratorUrl, String.class)
             .getBody();
 
@@ -0,0 +1,112 @@
+package org.animeatsume.utils;
+
+import java.time.Duration;
+
+/**
+ * Stops calling a dependency that keeps failing (or taking too long) so callers fail fast instead
+ * of waiting out a full timeout each time.
+ *
+ * - CLOSED: Calls go through. Opens once enough recent calls failed or were slower than the slow-call threshold.
+ * - OPEN: Calls are rejected without being made. Moves to HALF_OPEN after the open duration passes.
+ * - HALF_OPEN: A limited number of trial calls go through. Closes if they all succeed, otherwise re-opens.
+ */
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int windowSize;
+    private final int minCalls;
+    private final double failureRateThreshold;
+    private final long slowCallThresholdMs;
+    private final long openDurationMs;
+    private final int halfOpenTrialCalls;
+
+    private State state = State.CLOSED;
+    private RollingStats recentCalls;
+    private long openedAt;
+    private int trialCallsStarted;
+    private int trialCallsSucceeded;
+
+    public CircuitBreaker(
+        int windowSize,
+        int minCalls,
+        double failureRateThreshold,
+        Duration slowCallThreshold,
+        Duration openDuration,
+        int halfOpenTrialCalls
+    ) {
+        this.windowSize = windowSize;
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallThresholdMs = slowCallThreshold.toMillis();
+        this.openDurationMs = openDuration.toMillis();
+        this.halfOpenTrialCalls = Math.max(1, halfOpenTrialCalls);
+        this.recentCalls = new RollingStats(windowSize);
+    }
+
+    /**
+     * @return If a call may be made. Every permitted call must be followed by {@link #record(long, boolean)}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMs) {
+            state = State.HALF_OPEN;
+            trialCallsStarted = 0;
+            trialCallsSucceeded = 0;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (trialCallsStarted >= halfOpenTrialCalls) {
+                return false;
+            }
+
+            trialCallsStarted++;
+
+            return true;
+        }
+
+        return state == State.CLOSED;
+    }
+
+    public synchronized void record(long latencyMs, boolean success) {
+        boolean succeeded = success && latencyMs < slowCallThresholdMs;
+
+        if (state == State.HALF_OPEN) {
+            if (!succeeded) {
+                open();
+            } else if (++trialCallsSucceeded >= halfOpenTrialCalls) {
+                state = State.CLOSED;
+                recentCalls = new RollingStats(windowSize);
+            }
+
+            return;
+        }
+
+        if (state == State.OPEN) {
+            // Call was permitted before another one opened the circuit
+            return;
+        }
+
+        recentCalls.record(latencyMs, succeeded);
+
+        if (recentCalls.getSampleCount() >= minCalls && 1 - recentCalls.getSuccessRate() >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("CircuitBreaker(state=%s, recentCalls=%s)", state, recentCalls);
+    }
+}
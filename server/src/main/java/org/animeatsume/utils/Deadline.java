@@ -0,0 +1,166 @@
+package org.animeatsume.utils;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Time budget for a single client request.
+ *
+ * The deadline is started by the endpoint handling the request and bound to the current thread.
+ * It follows the request's work onto other threads via {@link #propagate(Runnable)}, which is
+ * registered as the {@code TaskDecorator} of the app's executors, so that anything running on
+ * behalf of the request (e.g. {@code @Async} episode searches) can read it via {@link #current()}.
+ *
+ * Once the deadline passes, it's marked as expired and all registered abort hooks
+ * (e.g. disconnecting in-flight HTTP connections) are run so blocked work is released immediately.
+ * Once the request's work finishes first, the deadline is released instead: its timer is cancelled and its hooks
+ * are dropped so finished requests aren't kept in memory (or cancelled) until the time budget runs out.
+ */
+@Log4j2
+public class Deadline {
+    private static final ThreadLocal<Deadline> CURRENT_DEADLINE = new ThreadLocal<>();
+
+    private static final ScheduledExecutorService EXPIRY_TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread timerThread = new Thread(runnable, "deadline-timer");
+        timerThread.setDaemon(true);
+        return timerThread;
+    });
+
+    private final long expiresAtNanos;
+    private final Queue<Runnable> abortHooks = new ConcurrentLinkedQueue<>();
+    private final ScheduledFuture<?> expiryTimer;
+    private volatile boolean expired = false;
+    private volatile boolean released = false;
+
+    private Deadline(Duration timeBudget) {
+        this.expiresAtNanos = System.nanoTime() + timeBudget.toNanos();
+        this.expiryTimer = EXPIRY_TIMER.schedule(this::expire, timeBudget.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public static Deadline after(Duration timeBudget) {
+        return new Deadline(timeBudget);
+    }
+
+    /**
+     * @return The deadline of the request being handled by the current thread, or {@code null} if there is none.
+     */
+    public static Deadline current() {
+        return CURRENT_DEADLINE.get();
+    }
+
+    /**
+     * Runs {@code work} with {@code deadline} bound to the current thread, then {@link #release() releases} the deadline.
+     */
+    public static <T> T runWith(Deadline deadline, Supplier<T> work) {
+        try {
+            return bind(deadline, work);
+        } finally {
+            deadline.release();
+        }
+    }
+
+    /**
+     * Runs {@code work} with {@code deadline} bound to the current thread without releasing it afterwards,
+     * for work that continues on other threads after {@code work} returns.
+     * Whoever calls this must {@link #release()} the deadline once that work is done.
+     */
+    public static <T> T bind(Deadline deadline, Supplier<T> work) {
+        Deadline previousDeadline = CURRENT_DEADLINE.get();
+
+        CURRENT_DEADLINE.set(deadline);
+
+        try {
+            return work.get();
+        } finally {
+            CURRENT_DEADLINE.set(previousDeadline);
+        }
+    }
+
+    /**
+     * Wraps {@code task} so it runs with the deadline of the thread that submitted it.
+     * Meant to be used as a {@code TaskDecorator}.
+     */
+    public static Runnable propagate(Runnable task) {
+        Deadline submittingThreadDeadline = current();
+
+        if (submittingThreadDeadline == null) {
+            return task;
+        }
+
+        // The submitting thread owns the deadline, so the task mustn't release it
+        return () -> bind(submittingThreadDeadline, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public long getRemainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    /**
+     * @return If the deadline passed (or was ended early via {@link #expire()}), meaning that some
+     *         of the request's work may have been cut off.
+     */
+    public boolean isExpired() {
+        return expired || System.nanoTime() >= expiresAtNanos;
+    }
+
+    /**
+     * Registers a hook to abort in-flight work once the deadline expires.
+     * Runs it immediately if the deadline already expired, and ignores it if the deadline was released.
+     */
+    public void onExpire(Runnable abortHook) {
+        if (released) {
+            return;
+        }
+
+        abortHooks.add(abortHook);
+
+        if (expired) {
+            runAbortHooks();
+        } else if (released) {
+            // Released while the hook was being added
+            abortHooks.clear();
+        }
+    }
+
+    /**
+     * Expires the deadline, running all abort hooks. Safe to call multiple times.
+     */
+    public void expire() {
+        expired = true;
+
+        runAbortHooks();
+    }
+
+    /**
+     * Marks the request's work as finished: cancels the expiry timer and drops the abort hooks without running them,
+     * since the work they'd abort is already done. Safe to call multiple times.
+     */
+    public void release() {
+        released = true;
+        expiryTimer.cancel(false);
+        abortHooks.clear();
+    }
+
+    private void runAbortHooks() {
+        Runnable abortHook;
+
+        while ((abortHook = abortHooks.poll()) != null) {
+            try {
+                abortHook.run();
+            } catch (Exception e) {
+                log.error("Could not abort work after deadline expired. Error = {}", e.getMessage());
+            }
+        }
+    }
+}
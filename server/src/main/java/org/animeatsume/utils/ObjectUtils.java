@@ -17,8 +17,11 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -62,6 +65,10 @@ public class ObjectUtils {
      * Waits for all {@link CompletableFuture}s to complete and extracts
      * the result from each.
      *
+     * If the current thread has a {@link Deadline}, only waits until it expires. Futures that
+     * haven't completed by then are cancelled, their results are {@code null}, and the deadline
+     * is expired so the request is marked as incomplete and its in-flight HTTP calls are aborted.
+     *
      * @param futures List of futures to complete.
      * @param sideEffect Function to run on each {@link CompletableFuture#get()} call.
      *                   Accepts the future result and its index in the {@code futures} list as arguments.
@@ -74,14 +81,21 @@ public class ObjectUtils {
         BiConsumer<T, Integer> sideEffect
     ) {
         List<T> results = new ArrayList<>(futures.size());
+        Deadline deadline = Deadline.current();
 
         for (int i = 0; i < futures.size(); i++) {
             CompletableFuture<T> future = futures.get(i);
             T result = null;
 
             try {
-                result = future.get();
-            } catch (InterruptedException | ExecutionException e) {
+                result = deadline == null
+                    ? future.get()
+                    : future.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.error("Future did not complete before the request deadline, cancelling it");
+                deadline.expire();
+                future.cancel(true);
+            } catch (InterruptedException | ExecutionException | CancellationException e) {
                 log.error("Could not get future. Error = {}", e.getMessage());
             }
 
@@ -0,0 +1,77 @@
+package org.animeatsume.utils;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size window of the most recent call outcomes (latency and success/failure).
+ * Older samples are overwritten once the window is full so the stats always reflect
+ * current behavior rather than the all-time average.
+ */
+public class RollingStats {
+    private final long[] latenciesMs;
+    private final boolean[] successes;
+    private int nextIndex = 0;
+    private int sampleCount = 0;
+
+    public RollingStats(int windowSize) {
+        this.latenciesMs = new long[windowSize];
+        this.successes = new boolean[windowSize];
+    }
+
+    public synchronized void record(long latencyMs, boolean success) {
+        latenciesMs[nextIndex] = latencyMs;
+        successes[nextIndex] = success;
+        nextIndex = (nextIndex + 1) % latenciesMs.length;
+        sampleCount = Math.min(sampleCount + 1, latenciesMs.length);
+    }
+
+    public synchronized int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * @return Ratio of successful calls in the window, or 1 if there are no samples yet.
+     */
+    public synchronized double getSuccessRate() {
+        if (sampleCount == 0) {
+            return 1;
+        }
+
+        int numSuccesses = 0;
+
+        for (int i = 0; i < sampleCount; i++) {
+            if (successes[i]) {
+                numSuccesses++;
+            }
+        }
+
+        return (double) numSuccesses / sampleCount;
+    }
+
+    /**
+     * @param percentile Value between 0 and 1, e.g. 0.95 for p95.
+     * @return Latency at the given percentile, or 0 if there are no samples yet.
+     */
+    public synchronized long getLatencyPercentile(double percentile) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+
+        long[] sortedLatencies = Arrays.copyOf(latenciesMs, sampleCount);
+        Arrays.sort(sortedLatencies);
+
+        int index = (int) Math.ceil(percentile * sampleCount) - 1;
+
+        return sortedLatencies[Math.max(0, Math.min(index, sampleCount - 1))];
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("RollingStats(samples=%d, successRate=%.2f, p50=%dms, p95=%dms)",
+            sampleCount,
+            getSuccessRate(),
+            getLatencyPercentile(0.5),
+            getLatencyPercentile(0.95)
+        );
+    }
+}
@@ -0,0 +1,76 @@
+package org.animeatsume.utils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into a single computation.
+ *
+ * The first caller for a key runs the work; any caller that arrives while it's still running
+ * waits for and receives the same result instead of starting its own (e.g. a popular episode
+ * airing and everyone searching for it at once).
+ * Nothing is kept once the work finishes, so this complements rather than replaces caching.
+ *
+ * Callers that wait only do so for as long as their own {@link Deadline} allows; the work keeps
+ * running for the caller that started it.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlightCalls = new ConcurrentHashMap<>();
+
+    public V run(K key, Supplier<V> work) {
+        CompletableFuture<V> newCall = new CompletableFuture<>();
+        CompletableFuture<V> inFlightCall = inFlightCalls.putIfAbsent(key, newCall);
+
+        if (inFlightCall != null) {
+            return awaitResult(key, inFlightCall);
+        }
+
+        try {
+            V result = work.get();
+            newCall.complete(result);
+
+            return result;
+        } catch (Throwable e) {
+            // Anything thrown (including Errors and sneaky-thrown checked exceptions) must complete the call,
+            // otherwise the callers waiting for it would hang
+            newCall.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            inFlightCalls.remove(key, newCall);
+        }
+    }
+
+    private static <K, V> V awaitResult(K key, CompletableFuture<V> inFlightCall) {
+        Deadline deadline = Deadline.current();
+
+        try {
+            return deadline == null
+                ? inFlightCall.get()
+                : inFlightCall.get(deadline.getRemainingMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // Re-throw the leader's original exception rather than the wrapper
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new CompletionException("Request deadline expired while waiting for in-flight call for key (" + key + ")", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.animeatsume.utils;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Access to virtual threads without requiring a JDK that has them.
+ *
+ * The project compiles against Java 17, so the {@code Thread.ofVirtual()} API is looked up reflectively
+ * and callers fall back to platform threads when it's unavailable (e.g. Java 17, or Java 19/20 without
+ * {@code --enable-preview}).
+ */
+@Log4j2
+public class VirtualThreads {
+    /**
+     * @return A factory creating virtual threads named {@code namePrefix + <counter>},
+     *         or null if the running JVM doesn't support virtual threads.
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method name = builderClass.getMethod("name", String.class, long.class);
+            Method factory = builderClass.getMethod("factory");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+
+            builder = name.invoke(builder, namePrefix, 0L);
+
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (Exception e) {
+            log.debug("Virtual threads are not available in this JVM: {}", e.toString());
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,238 @@
+package org.animeatsume.utils.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} backed by Caffeine, which bounds the cache by size
+ * using a frequency-aware eviction policy (W-TinyLFU) so popular entries survive bursts of one-off lookups.
+ *
+ * Entries expire after a jittered TTL (see {@link JitteredExpiry}) and, if the cache has a refresher,
+ * are re-computed in the background when read shortly before they expire so that popular entries never
+ * expire out from under users.
+ * With stale-while-revalidate, entries past their TTL are still served (up to their hard max-age)
+ * while a single background refresh replaces them.
+ *
+ * Refreshes run on their own executor rather than Caffeine's, which also does eviction and other maintenance
+ * that shouldn't wait behind (potentially slow) refreshes.
+ *
+ * Persistent caches are backed by a {@link PersistentCacheStore} (L2): values are written through to it
+ * in the background and read from it on an in-memory miss.
+ */
+@Log4j2
+public class BoundedCache extends AbstractValueAdaptingCache {
+    private final String name;
+    private final JitteredExpiry expiry;
+    private final Cache<Object, Object> cache;
+    private final PersistentCacheStore persistentStore;
+    private final Executor refreshExecutor;
+    // How long before (hard) expiration entries are refreshed on read, if refreshing is enabled
+    private final Duration refreshWindow;
+    private final Set<Object> refreshesInFlight = ConcurrentHashMap.newKeySet();
+    private volatile Function<Object, Object> refresher;
+
+    /**
+     * @param persistentStore L2 store, or {@code null} for an in-memory-only cache.
+     * @param refreshExecutor Executor on which background refreshes run.
+     */
+    public BoundedCache(String name, CacheSpec spec, PersistentCacheStore persistentStore, Executor refreshExecutor) {
+        super(true);
+
+        this.name = name;
+        this.expiry = new JitteredExpiry(spec.getTimeToLive(), spec.getJitter(), spec.getStaleTime());
+        this.persistentStore = persistentStore;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshWindow = spec.getRefreshWindow();
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(spec.getMaximumSize())
+            .expireAfter(expiry)
+            .build();
+    }
+
+    /**
+     * Sets how to re-compute the value for a key when refreshing ahead of expiry.
+     * The refresher may return {@code null} to keep the current value (e.g. if the new one is incomplete).
+     */
+    public void setRefresher(Function<Object, Object> refresher) {
+        this.refresher = refresher;
+    }
+
+    /**
+     * Sets how to determine the max TTL of individual values, e.g. from when URLs within them expire.
+     *
+     * @see JitteredExpiry#setTimeToLiveResolver(Function)
+     */
+    public void setTimeToLiveResolver(Function<Object, Duration> timeToLiveResolver) {
+        expiry.setTimeToLiveResolver(timeToLiveResolver);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Cache<Object, Object> getNativeCache() {
+        return cache;
+    }
+
+    protected Object lookup(Object key) {
+        Object storeValue = cache.getIfPresent(key);
+
+        if (storeValue == null && persistentStore != null) {
+            PersistentCacheStore.StoredValue storedValue = persistentStore.read(name, key);
+
+            if (storedValue != null) {
+                storeValue = storedValue.getValue();
+
+                // Keep the L2 entry's remaining lifetime rather than restarting it
+                cache.policy().expireVariably().ifPresentOrElse(
+                    expiration -> expiration.put(key, storedValue.getValue(), storedValue.getTimeToLive()),
+                    () -> cache.put(key, storedValue.getValue())
+                );
+            }
+        }
+
+        if (storeValue != null) {
+            refreshIfDue(key);
+        }
+
+        return storeValue;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object storeValue = lookup(key);
+
+        if (storeValue != null) {
+            return (T) fromStoreValue(storeValue);
+        }
+
+        return (T) fromStoreValue(cache.get(key, k -> {
+            try {
+                Object loadedValue = toStoreValue(valueLoader.call());
+                persist(k, loadedValue);
+
+                return loadedValue;
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+        }));
+    }
+
+    public void put(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+
+        cache.put(key, storeValue);
+        persist(key, storeValue);
+    }
+
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object storeValue = toStoreValue(value);
+        Object existingValue = cache.asMap().putIfAbsent(key, storeValue);
+
+        if (existingValue == null) {
+            persist(key, storeValue);
+        }
+
+        return toValueWrapper(existingValue);
+    }
+
+    public void evict(Object key) {
+        cache.invalidate(key);
+
+        if (persistentStore != null) {
+            persistentStore.delete(name, key);
+        }
+    }
+
+    public boolean evictIfPresent(Object key) {
+        boolean wasPresent = cache.asMap().remove(key) != null;
+
+        if (persistentStore != null) {
+            persistentStore.delete(name, key);
+        }
+
+        return wasPresent;
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+
+        if (persistentStore != null) {
+            persistentStore.clear(name);
+        }
+    }
+
+    public boolean invalidate() {
+        boolean hadEntries = cache.estimatedSize() > 0;
+
+        clear();
+
+        return hadEntries;
+    }
+
+    private void persist(Object key, Object storeValue) {
+        if (persistentStore == null || storeValue == NullValue.INSTANCE) {
+            return;
+        }
+
+        persistentStore.write(name, key, storeValue, expiry.getTimeToLive(storeValue));
+    }
+
+    /**
+     * Refreshes the entry in the background if it's within {@link #refreshWindow} of expiring, i.e. is stale or
+     * about to be. Each entry's expiration includes its own jitter, so entries written together aren't all
+     * refreshed together either.
+     */
+    private void refreshIfDue(Object key) {
+        Function<Object, Object> currentRefresher = refresher;
+
+        if (currentRefresher == null || refreshWindow == null) {
+            return;
+        }
+
+        boolean isDue = cache.policy().expireVariably()
+            .flatMap(expiration -> expiration.getExpiresAfter(key))
+            .map(timeUntilExpiration -> timeUntilExpiration.compareTo(refreshWindow) < 0)
+            .orElse(false);
+
+        // Only one refresh per entry at a time
+        if (!isDue || !refreshesInFlight.add(key)) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Object refreshedValue = currentRefresher.apply(key);
+
+                    log.debug("Refreshed cache ({}) entry for key ({})", name, key);
+
+                    // `null` means keep the current value (e.g. the new one is incomplete)
+                    if (refreshedValue != null) {
+                        put(key, refreshedValue);
+                    }
+                } catch (Exception e) {
+                    log.error("Could not refresh cache ({}) entry for key ({}). Error = {}", name, key, e.getMessage());
+                } finally {
+                    refreshesInFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Refresh queue is full; the entry is still served and is refreshed on a later read
+            refreshesInFlight.remove(key);
+
+            log.debug("Skipped refreshing cache ({}) entry for key ({}) since too many refreshes are queued", name, key);
+        }
+    }
+}
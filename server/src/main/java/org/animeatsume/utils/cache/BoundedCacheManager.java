@@ -0,0 +1,74 @@
+package org.animeatsume.utils.cache;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Creates a {@link BoundedCache} per cache name, each configured by its own {@link CacheSpec}.
+ * Caches without a spec use the {@link CacheSpec} defaults.
+ */
+@Log4j2
+public class BoundedCacheManager implements CacheManager {
+    private final Map<String, CacheSpec> cacheSpecs = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final Map<String, BoundedCache> caches = new ConcurrentHashMap<>();
+    private final PersistentCacheStore persistentStore;
+    private final Executor refreshExecutor;
+
+    public BoundedCacheManager(
+        String[] cacheNames,
+        Map<String, CacheSpec> cacheSpecs,
+        PersistentCacheStore persistentStore,
+        Executor refreshExecutor
+    ) {
+        this.cacheSpecs.putAll(cacheSpecs);
+        this.persistentStore = persistentStore;
+        this.refreshExecutor = refreshExecutor;
+
+        Arrays.stream(cacheNames).forEach(this::getCache);
+    }
+
+    public BoundedCache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Registers how to re-compute entries of the given cache when they're refreshed ahead of expiry.
+     *
+     * @see BoundedCache#setRefresher(Function)
+     */
+    public void registerRefresher(String cacheName, Function<Object, Object> refresher) {
+        getCache(cacheName).setRefresher(refresher);
+    }
+
+    /**
+     * Registers how to determine the max TTL of individual entries of the given cache.
+     *
+     * @see BoundedCache#setTimeToLiveResolver(Function)
+     */
+    public void registerTimeToLiveResolver(String cacheName, Function<Object, Duration> timeToLiveResolver) {
+        getCache(cacheName).setTimeToLiveResolver(timeToLiveResolver);
+    }
+
+    private BoundedCache createCache(String name) {
+        CacheSpec spec = cacheSpecs.getOrDefault(name, new CacheSpec());
+
+        log.info("Creating cache ({}) with spec: {}", name, spec);
+
+        return new BoundedCache(name, spec, spec.isPersistent() ? persistentStore : null, refreshExecutor);
+    }
+}
@@ -0,0 +1,65 @@
+package org.animeatsume.utils.cache;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * Per-cache configuration, bound from {@code org.animeatsume.cache.specs.<cache-name>.*}.
+ */
+@Data
+public class CacheSpec {
+    // Max number of entries before the least valuable (least frequently/recently used) ones are evicted
+    private long maximumSize = 1000;
+    private Duration timeToLive = Duration.ofDays(7);
+    // Ratio by which each entry's TTL is randomly shortened/lengthened, e.g. 0.1 for +/- 10%
+    private double jitter = 0.1;
+    // Entries read within this long of their (jittered) TTL are refreshed in the background, if the cache has a refresher.
+    // Null/zero to disable.
+    private Duration refreshAhead = null;
+    // Once an entry is older than its TTL, keep serving it (stale) for up to this long while a single
+    // background refresh runs, if the cache has a refresher. Entries are evicted at their jittered TTL + this (hard max-age).
+    // Null/zero to disable.
+    private Duration staleWhileRevalidate = null;
+    // Also keep entries in the persistent (disk) store so they survive restarts and aren't limited by heap size
+    private boolean persistent = false;
+
+    public boolean isRefreshAheadEnabled() {
+        return refreshAhead != null
+            && !refreshAhead.isZero()
+            && refreshAhead.compareTo(timeToLive) < 0;
+    }
+
+    public boolean isStaleWhileRevalidateEnabled() {
+        return staleWhileRevalidate != null
+            && !staleWhileRevalidate.isZero()
+            && !staleWhileRevalidate.isNegative();
+    }
+
+    /**
+     * @return How long entries may be served stale after their (jittered) TTL, or zero if they aren't.
+     *         Unlike the TTL, this isn't jittered since it only extends when entries are evicted.
+     */
+    public Duration getStaleTime() {
+        return isStaleWhileRevalidateEnabled()
+            ? staleWhileRevalidate
+            : Duration.ZERO;
+    }
+
+    /**
+     * @return How long before being evicted entries are refreshed (on their next read), or {@code null} if never.
+     *         Counted back from each entry's own eviction time, so that it's relative to the entry's jittered TTL:
+     *         entries are refreshed once they're stale, or {@link #refreshAhead} before their TTL.
+     */
+    public Duration getRefreshWindow() {
+        Duration refreshWindow = getStaleTime();
+
+        if (isRefreshAheadEnabled()) {
+            refreshWindow = refreshWindow.plus(refreshAhead);
+        }
+
+        return refreshWindow.isZero()
+            ? null
+            : refreshWindow;
+    }
+}
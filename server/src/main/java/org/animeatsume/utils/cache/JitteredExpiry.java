@@ -0,0 +1,74 @@
+package org.animeatsume.utils.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.cache.support.NullValue;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * Expires each entry after the TTL +/- a random amount so that entries written at the same time
+ * (e.g. right after startup) don't all expire, and get re-fetched from providers, at the same time.
+ * Entries that may be served stale are kept for the (unjittered) stale time after that.
+ *
+ * Values that know how long they're valid for (e.g. signed URLs) can cap their own TTL via
+ * a time-to-live resolver.
+ */
+class JitteredExpiry implements Expiry<Object, Object> {
+    private final long timeToLiveNanos;
+    private final double jitter;
+    private final long staleTimeNanos;
+    private volatile Function<Object, Duration> timeToLiveResolver;
+
+    JitteredExpiry(Duration timeToLive, double jitter, Duration staleTime) {
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.jitter = Math.max(0, Math.min(jitter, 1));
+        this.staleTimeNanos = staleTime.toNanos();
+    }
+
+    /**
+     * @param timeToLiveResolver Returns the max TTL of a value (including any stale time, e.g. since a signed URL
+     *                           can't be served at all once it expires), or {@code null} to use the cache's TTL.
+     */
+    void setTimeToLiveResolver(Function<Object, Duration> timeToLiveResolver) {
+        this.timeToLiveResolver = timeToLiveResolver;
+    }
+
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return getTimeToLiveNanos(value);
+    }
+
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return getTimeToLiveNanos(value);
+    }
+
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    Duration getTimeToLive(Object value) {
+        return Duration.ofNanos(getTimeToLiveNanos(value));
+    }
+
+    private long getTimeToLiveNanos(Object value) {
+        long maxAgeNanos = getJitteredTimeToLiveNanos() + staleTimeNanos;
+        Function<Object, Duration> currentTimeToLiveResolver = timeToLiveResolver;
+
+        if (currentTimeToLiveResolver == null || value == NullValue.INSTANCE) {
+            return maxAgeNanos;
+        }
+
+        Duration valueTimeToLive = currentTimeToLiveResolver.apply(value);
+
+        return valueTimeToLive == null
+            ? maxAgeNanos
+            : Math.min(maxAgeNanos, valueTimeToLive.toNanos());
+    }
+
+    private long getJitteredTimeToLiveNanos() {
+        double randomJitter = jitter * ThreadLocalRandom.current().nextDouble(-1, 1);
+
+        return (long) (timeToLiveNanos * (1 + randomJitter));
+    }
+}
@@ -0,0 +1,209 @@
+package org.animeatsume.utils.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.dao.AnimeAtsumeDao;
+import org.animeatsume.dao.model.CacheEntry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Disk-backed second-level tier for {@link BoundedCache}s, stored in the app's SQLite DB.
+ *
+ * Lets caches survive restarts/redeploys and hold more entries than fit in the heap.
+ * Values are stored as gzipped JSON (with type info so polymorphic models are restored as-is).
+ * Keys are stored via their {@code toString()}, so cache keys must have a stable one
+ * (e.g. Lombok {@code @Data} models, Strings, or Spring's {@code SimpleKey}).
+ *
+ * Reads are synchronous since they're only done on an in-memory miss, but writes are queued and
+ * done in the background (write-behind) so they never slow down the request that produced the value.
+ * Deletes go through the same queue so they run after any writes of the same key queued before them.
+ */
+@Log4j2
+@Component
+public class PersistentCacheStore {
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+        .featuresToDisable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+        .build()
+        .activateDefaultTyping(
+            BasicPolymorphicTypeValidator.builder()
+                .allowIfBaseType("org.animeatsume.")
+                .allowIfSubType("org.animeatsume.")
+                .allowIfSubType("java.util.")
+                .build(),
+            ObjectMapper.DefaultTyping.NON_FINAL,
+            JsonTypeInfo.As.PROPERTY
+        );
+
+    // Single writer since SQLite only allows one at a time anyway.
+    // Drops the oldest pending write when the queue is full; worst case is an extra L1 miss later.
+    // Deletes are never dropped, otherwise an evicted/invalidated entry would come back from the store.
+    private final ExecutorService writeBehindExecutor;
+
+    @Autowired
+    AnimeAtsumeDao animeAtsumeDao;
+
+    public PersistentCacheStore(@Value("${org.animeatsume.cache.store.write-queue-capacity}") int writeQueueCapacity) {
+        this.writeBehindExecutor = new ThreadPoolExecutor(
+            1,
+            1,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(writeQueueCapacity),
+            runnable -> {
+                Thread writerThread = new Thread(runnable, "cache-store-writer");
+                writerThread.setDaemon(true);
+                return writerThread;
+            },
+            PersistentCacheStore::dropOldestWrite
+        );
+    }
+
+    /**
+     * @return The stored value along with how much longer it's valid for, or {@code null} if it's missing/expired.
+     */
+    public StoredValue read(String cacheName, Object key) {
+        try {
+            CacheEntry cacheEntry = animeAtsumeDao.getCacheEntry(cacheName, getCacheKey(key));
+
+            if (cacheEntry == null) {
+                return null;
+            }
+
+            long remainingMillis = cacheEntry.getExpiresAt() - System.currentTimeMillis();
+
+            if (remainingMillis <= 0) {
+                return null;
+            }
+
+            return new StoredValue(deserialize(cacheEntry.getValue()), Duration.ofMillis(remainingMillis));
+        } catch (Exception e) {
+            log.error("Could not read cache ({}) entry for key ({}) from the persistent store. Error = {}", cacheName, key, e.getMessage());
+
+            return null;
+        }
+    }
+
+    public void write(String cacheName, Object key, Object value, Duration timeToLive) {
+        writeBehindExecutor.execute(() -> {
+            try {
+                animeAtsumeDao.saveCacheEntry(new CacheEntry(
+                    cacheName,
+                    getCacheKey(key),
+                    serialize(value),
+                    System.currentTimeMillis() + timeToLive.toMillis()
+                ));
+            } catch (Exception e) {
+                log.error("Could not write cache ({}) entry for key ({}) to the persistent store. Error = {}", cacheName, key, e.getMessage());
+            }
+        });
+    }
+
+    public void delete(String cacheName, Object key) {
+        writeBehindExecutor.execute((Deletion) () -> animeAtsumeDao.deleteCacheEntry(cacheName, getCacheKey(key)));
+    }
+
+    public void clear(String cacheName) {
+        writeBehindExecutor.execute((Deletion) () -> animeAtsumeDao.deleteCacheEntries(cacheName));
+    }
+
+    @Scheduled(fixedDelayString = "${org.animeatsume.cache.store.purge-interval-ms}")
+    public void purgeExpiredEntries() {
+        writeBehindExecutor.execute(() -> {
+            int numPurged = animeAtsumeDao.deleteExpiredCacheEntries();
+
+            log.info("Purged {} expired entries from the persistent cache store", numPurged);
+        });
+    }
+
+    /**
+     * Makes room for the rejected task by dropping the oldest pending write (or purge).
+     * If only deletes are pending, a rejected delete waits for room while a rejected write is dropped.
+     */
+    private static void dropOldestWrite(Runnable task, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            return;
+        }
+
+        BlockingQueue<Runnable> queue = executor.getQueue();
+
+        queue.stream()
+            .filter(pendingTask -> !(pendingTask instanceof Deletion))
+            .findFirst()
+            .ifPresent(queue::remove);
+
+        if (!(task instanceof Deletion)) {
+            queue.offer(task);
+            return;
+        }
+
+        try {
+            queue.put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Still can't drop it, so delete on the caller's thread instead
+            task.run();
+        }
+    }
+
+    private static String getCacheKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private byte[] serialize(Object value) throws IOException {
+        ByteArrayOutputStream serializedValue = new ByteArrayOutputStream();
+
+        try (OutputStream gzipOutputStream = new GZIPOutputStream(serializedValue)) {
+            objectMapper.writeValue(gzipOutputStream, new ValueHolder(value));
+        }
+
+        return serializedValue.toByteArray();
+    }
+
+    private Object deserialize(byte[] serializedValue) throws IOException {
+        try (InputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(serializedValue))) {
+            return objectMapper.readValue(gzipInputStream, ValueHolder.class).getValue();
+        }
+    }
+
+    // Marks queued deletes so they're never the pending task dropped when the queue is full
+    private interface Deletion extends Runnable {}
+
+    @Data
+    @AllArgsConstructor
+    public static class StoredValue {
+        private Object value;
+        private Duration timeToLive;
+    }
+
+    // Wrapper so the root value's type is written too, regardless of whether it's a final class
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class ValueHolder {
+        private Object value;
+    }
+}
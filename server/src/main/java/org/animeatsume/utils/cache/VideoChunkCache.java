@@ -0,0 +1,235 @@
+package org.animeatsume.utils.cache;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Block cache for proxied videos, keyed by source URL and chunk index (chunks are aligned to {@link #getChunkSize()}),
+ * so seeking back or rewatching an episode is served locally instead of being re-downloaded.
+ *
+ * Hot chunks are kept in memory; the least recently used ones are moved to local disk once the memory tier is full,
+ * and the least recently used ones on disk are deleted once the disk tier is full.
+ * Video URLs are usually signed and short-lived, so the disk tier is cleared on startup rather than indexed.
+ */
+@Log4j2
+@Component
+public class VideoChunkCache {
+    private static final String CHUNK_FILE_EXTENSION = ".chunk";
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private final int chunkSize;
+    private final long maxMemoryBytes;
+    private final long maxDiskBytes;
+    private final Path directory;
+
+    // Access-ordered so iteration starts at the least recently used chunk
+    private final LinkedHashMap<String, byte[]> memoryChunks = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> diskChunkSizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes = 0;
+    private long diskBytes = 0;
+
+    public VideoChunkCache(
+        @Value("${org.animeatsume.video.chunk-cache.chunk-size}") DataSize chunkSize,
+        @Value("${org.animeatsume.video.chunk-cache.max-memory-size}") DataSize maxMemorySize,
+        @Value("${org.animeatsume.video.chunk-cache.max-disk-size}") DataSize maxDiskSize,
+        @Value("${org.animeatsume.video.chunk-cache.directory}") String directory
+    ) {
+        this.chunkSize = (int) chunkSize.toBytes();
+        this.maxMemoryBytes = maxMemorySize.toBytes();
+        this.maxDiskBytes = maxDiskSize.toBytes();
+        this.directory = Path.of(directory);
+
+        clearDirectory();
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return The chunk's bytes, or {@code null} if it isn't cached.
+     *         Only the last chunk of a video may be shorter than {@link #getChunkSize()}.
+     */
+    public byte[] get(String url, long chunkIndex) {
+        String chunkKey = getChunkKey(url, chunkIndex);
+        byte[] chunk;
+
+        synchronized (this) {
+            chunk = memoryChunks.get(chunkKey);
+
+            if (chunk != null || diskChunkSizes.get(chunkKey) == null) {
+                return chunk;
+            }
+        }
+
+        try {
+            chunk = Files.readAllBytes(getChunkFile(chunkKey));
+        } catch (IOException e) {
+            log.debug("Could not read video chunk ({}) from disk. Error = {}", chunkKey, e.getMessage());
+
+            return null;
+        }
+
+        // Promote it back to memory since it's being watched (again)
+        put(url, chunkIndex, chunk);
+
+        return chunk;
+    }
+
+    /**
+     * @return If the chunk is cached, without reading it or counting as a use of it.
+     */
+    public synchronized boolean contains(String url, long chunkIndex) {
+        String chunkKey = getChunkKey(url, chunkIndex);
+
+        return memoryChunks.containsKey(chunkKey) || diskChunkSizes.containsKey(chunkKey);
+    }
+
+    public void put(String url, long chunkIndex, byte[] chunk) {
+        String chunkKey = getChunkKey(url, chunkIndex);
+        Map<String, byte[]> chunksToMoveToDisk = new LinkedHashMap<>();
+        List<String> chunksToDelete = new ArrayList<>();
+
+        synchronized (this) {
+            Long diskChunkSize = diskChunkSizes.remove(chunkKey);
+
+            if (diskChunkSize != null) {
+                diskBytes -= diskChunkSize;
+                chunksToDelete.add(chunkKey);
+            }
+
+            byte[] previousChunk = memoryChunks.put(chunkKey, chunk);
+
+            memoryBytes += chunk.length - (previousChunk == null ? 0 : previousChunk.length);
+
+            Iterator<Map.Entry<String, byte[]>> leastRecentlyUsedInMemory = memoryChunks.entrySet().iterator();
+
+            while (memoryBytes > maxMemoryBytes && leastRecentlyUsedInMemory.hasNext()) {
+                Map.Entry<String, byte[]> evictedChunk = leastRecentlyUsedInMemory.next();
+
+                leastRecentlyUsedInMemory.remove();
+                memoryBytes -= evictedChunk.getValue().length;
+
+                if (maxDiskBytes > 0) {
+                    chunksToMoveToDisk.put(evictedChunk.getKey(), evictedChunk.getValue());
+                    diskChunkSizes.put(evictedChunk.getKey(), (long) evictedChunk.getValue().length);
+                    diskBytes += evictedChunk.getValue().length;
+                }
+            }
+
+            Iterator<Map.Entry<String, Long>> leastRecentlyUsedOnDisk = diskChunkSizes.entrySet().iterator();
+
+            while (diskBytes > maxDiskBytes && leastRecentlyUsedOnDisk.hasNext()) {
+                Map.Entry<String, Long> evictedChunk = leastRecentlyUsedOnDisk.next();
+
+                leastRecentlyUsedOnDisk.remove();
+                diskBytes -= evictedChunk.getValue();
+
+                if (chunksToMoveToDisk.remove(evictedChunk.getKey()) == null) {
+                    chunksToDelete.add(evictedChunk.getKey());
+                }
+            }
+        }
+
+        // File IO is done outside the lock so reads of other chunks aren't blocked by it.
+        // A concurrent read of a chunk being moved to disk just misses and re-downloads it.
+        chunksToDelete.forEach(this::deleteChunkFile);
+        chunksToMoveToDisk.forEach(this::writeChunkFile);
+    }
+
+    private void writeChunkFile(String chunkKey, byte[] chunk) {
+        Path tempFile = null;
+
+        try {
+            Files.createDirectories(directory);
+
+            // Written to a temp file first so readers never see a partially written chunk
+            tempFile = Files.createTempFile(directory, chunkKey, TEMP_FILE_EXTENSION);
+
+            Files.write(tempFile, chunk);
+
+            // Other puts may have evicted or promoted the chunk while it was being written, in which case
+            // moving it into place would leave a file that isn't tracked in (or counted towards) the disk tier
+            synchronized (this) {
+                if (diskChunkSizes.containsKey(chunkKey)) {
+                    Files.move(tempFile, getChunkFile(chunkKey), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    tempFile = null;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Could not write video chunk ({}) to disk. Error = {}", chunkKey, e.getMessage());
+
+            synchronized (this) {
+                Long diskChunkSize = diskChunkSizes.remove(chunkKey);
+
+                if (diskChunkSize != null) {
+                    diskBytes -= diskChunkSize;
+                }
+            }
+        } finally {
+            if (tempFile != null) {
+                deleteFile(tempFile);
+            }
+        }
+    }
+
+    private void deleteChunkFile(String chunkKey) {
+        // The chunk may have been moved back to disk since it was evicted, in which case its file is in use again
+        synchronized (this) {
+            if (!diskChunkSizes.containsKey(chunkKey)) {
+                deleteFile(getChunkFile(chunkKey));
+            }
+        }
+    }
+
+    private static void deleteFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.error("Could not delete video chunk file ({}). Error = {}", file, e.getMessage());
+        }
+    }
+
+    private void clearDirectory() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        // Only our own files are deleted in case the directory is shared or misconfigured
+        try (Stream<Path> files = Files.list(directory)) {
+            files
+                .filter(file -> {
+                    String fileName = file.getFileName().toString();
+
+                    return fileName.endsWith(CHUNK_FILE_EXTENSION) || fileName.endsWith(TEMP_FILE_EXTENSION);
+                })
+                .forEach(VideoChunkCache::deleteFile);
+        } catch (IOException e) {
+            log.error("Could not clear video chunk directory ({}). Error = {}", directory, e.getMessage());
+        }
+    }
+
+    private Path getChunkFile(String chunkKey) {
+        return directory.resolve(chunkKey + CHUNK_FILE_EXTENSION);
+    }
+
+    // URLs are hashed so keys are safe to use as file names
+    private static String getChunkKey(String url, long chunkIndex) {
+        return DigestUtils.md5DigestAsHex(url.getBytes(StandardCharsets.UTF_8)) + "-" + chunkIndex;
+    }
+}
@@ -0,0 +1,59 @@
+package org.animeatsume.utils.compression;
+
+import org.apache.hc.client5.http.entity.DeflateInputStreamFactory;
+import org.apache.hc.client5.http.entity.GZIPInputStreamFactory;
+import org.apache.hc.client5.http.entity.InputStreamFactory;
+import org.brotli.dec.BrotliInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+/**
+ * Decoders for the {@code Content-Encoding}s accepted from upstream servers.
+ *
+ * Each one wraps the response stream rather than buffering it, so bodies are decompressed as they're read.
+ * Apache's client only ships gzip and deflate, so brotli is added via {@code org.brotli:dec}.
+ */
+public class ContentDecoders {
+    public static final String GZIP = "gzip";
+    public static final String X_GZIP = "x-gzip";
+    public static final String DEFLATE = "deflate";
+    public static final String BROTLI = "br";
+
+    /**
+     * @return Decoders by {@code Content-Encoding} in order of preference, which is also
+     *         the order they're listed in the {@code Accept-Encoding} request header.
+     */
+    public static LinkedHashMap<String, InputStreamFactory> getDecoders() {
+        LinkedHashMap<String, InputStreamFactory> decoders = new LinkedHashMap<>();
+
+        decoders.put(BROTLI, BrotliInputStream::new);
+        decoders.put(GZIP, GZIPInputStreamFactory.getInstance());
+        decoders.put(X_GZIP, GZIPInputStreamFactory.getInstance());
+        decoders.put(DEFLATE, DeflateInputStreamFactory.getInstance());
+
+        return decoders;
+    }
+
+    /**
+     * Wraps the stream in a decoder for the given {@code Content-Encoding}.
+     * Streams without an encoding, or with "identity", are returned as-is.
+     *
+     * @throws IOException If the encoding isn't supported or the stream's header is invalid.
+     */
+    public static InputStream decode(String contentEncoding, InputStream inputStream) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank() || contentEncoding.equalsIgnoreCase("identity")) {
+            return inputStream;
+        }
+
+        InputStreamFactory decoder = getDecoders().get(contentEncoding.trim().toLowerCase(Locale.ROOT));
+
+        if (decoder == null) {
+            throw new IOException("Unsupported Content-Encoding: " + contentEncoding);
+        }
+
+        return decoder.create(inputStream);
+    }
+}
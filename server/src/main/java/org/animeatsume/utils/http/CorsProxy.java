@@ -4,6 +4,8 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.http.*;
 import org.springframework.http.converter.FormHttpMessageConverter;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
 import javax.annotation.Nullable;
 import java.net.URI;
@@ -15,6 +17,8 @@ import java.util.Map;
 @Log4j2
 public class CorsProxy {
     private static final boolean defaultFollowRedirects = true;
+    private static final RestTemplate CORS_REST_TEMPLATE = createCorsRestTemplate(true);
+    private static final RestTemplate CORS_NO_FOLLOW_REDIRECTS_REST_TEMPLATE = createCorsRestTemplate(false);
 
     public static <T> ResponseEntity<T> doCorsRequest(
         HttpMethod method,
@@ -111,11 +115,9 @@ public class CorsProxy {
         }
 
         Class<?> responseClass = Requests.getClassFromContentTypeHeader(requestAcceptHeaders.toString());
-        RestTemplate restTemplate = noFollowRedirects ? Requests.getNoFollowRedirectsRestTemplate() : new RestTemplate();
-
-        // Add support for form-data requests and Map<String,String> responses
-        Requests.addAcceptableMediaTypes(restTemplate, MediaType.APPLICATION_FORM_URLENCODED);
-        restTemplate.getMessageConverters().add(new FormHttpMessageConverter());
+        RestTemplate restTemplate = noFollowRedirects
+            ? CORS_NO_FOLLOW_REDIRECTS_REST_TEMPLATE
+            : CORS_REST_TEMPLATE;
 
         ResponseEntity<T> response = Requests.<T>doRequestWithFallback(restTemplate, url, method, corsEntity, responseClass);
         Object responseBody = response.getBody();
@@ -130,6 +132,63 @@ public class CorsProxy {
         return new ResponseEntity<T>((T) responseBody, responseHeaders, HttpStatus.OK);
     }
 
+    /**
+     * Non-blocking counterpart of {@link #doCorsRequest(HttpMethod, URI, URI, Object, HttpHeaders)}.
+     * Nothing is sent until the returned {@link Mono} is subscribed to.
+     */
+    public static <T> Mono<ResponseEntity<T>> doCorsRequestAsync(
+        HttpMethod method,
+        URI url,
+        @Nullable URI origin,
+        @Nullable Object body,
+        @Nullable HttpHeaders headers
+    ) {
+        return doCorsRequestAsync(method, url, origin, body, headers, defaultFollowRedirects);
+    }
+
+    public static <T> Mono<ResponseEntity<T>> doCorsRequestAsync(
+        HttpMethod method,
+        URI url,
+        @Nullable URI origin,
+        @Nullable Object body,
+        @Nullable HttpHeaders headers,
+        boolean noFollowRedirects
+    ) {
+        String corsOrigin = origin != null ? origin.toString() : UriParser.getOrigin(url);
+        HttpEntity<Object> corsEntity = getCorsEntity(body, corsOrigin, corsOrigin, null, headers, true);
+        List<MediaType> requestAcceptHeaders = corsEntity.getHeaders().getAccept();
+
+        if (requestAcceptHeaders.size() == 0) {
+            return Mono.just((ResponseEntity<T>) ResponseEntity
+                .status(HttpStatus.NOT_ACCEPTABLE)
+                .body("You must add a value for the 'Accept' header"));
+        }
+
+        Class<?> responseClass = Requests.getClassFromContentTypeHeader(requestAcceptHeaders.toString());
+        WebClient webClient = PooledWebClient.getWebClient(!noFollowRedirects);
+
+        return Requests.<T>doRequestWithFallbackAsync(webClient, url, method, corsEntity, responseClass)
+            .map(response -> {
+                HttpHeaders responseHeaders = Requests.copyHttpHeaders(response.getHeaders());
+
+                // See doCorsRequest() for why these are removed
+                responseHeaders.remove(HttpHeaders.CONTENT_ENCODING);
+                responseHeaders.remove(HttpHeaders.TRANSFER_ENCODING);
+
+                return new ResponseEntity<T>(response.getBody(), responseHeaders, HttpStatus.OK);
+            });
+    }
+
+    private static RestTemplate createCorsRestTemplate(boolean followRedirects) {
+        RestTemplate restTemplate = Requests.newRestTemplate(followRedirects);
+
+        // Add support for form-data requests and Map<String,String> responses
+        Requests.addAcceptableMediaTypes(restTemplate, MediaType.APPLICATION_FORM_URLENCODED);
+        restTemplate.getMessageConverters().add(new FormHttpMessageConverter());
+
+        return restTemplate;
+    }
+
     public static <T> HttpEntity<T> getCorsEntity(T body, String origin, String referer) {
         return getCorsEntity(body, origin, referer, null);
     }
@@ -182,8 +241,9 @@ public class CorsProxy {
         }
 
         if (preventGzipResponses) {
-            // Prevent getting gzip responses by removing the 'Accept-Encoding'
-            // header which defines what algorithms are supported
+            // Remove the client's 'Accept-Encoding' header, which defines what algorithms the client
+            // supports, so the HTTP client can advertise the ones it can decompress instead (see `ContentDecoders`).
+            // Otherwise, responses in encodings we can't decode would be passed along still compressed.
             corsHeaders.remove(HttpHeaders.ACCEPT_ENCODING);
         }
 
@@ -0,0 +1,298 @@
+package org.animeatsume.utils.http;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Serves local files with full {@code Range} support (single ranges, {@code multipart/byteranges} for multiple once
+ * overlapping ones are merged, 416 if none are satisfiable) and {@code ETag}/{@code Last-Modified} validators
+ * (304/412 for conditional requests).
+ *
+ * File bytes never pass through the heap: single ranges and whole files are handed to Tomcat's sendfile when the
+ * connector supports it (e.g. plain HTTP with NIO), and otherwise copied with {@link FileChannel#transferTo}.
+ */
+@Log4j2
+public class FileRanges {
+    // Request attributes of Tomcat's sendfile support, see `org.apache.catalina.Globals`
+    private static final String SENDFILE_SUPPORTED_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+    private static final String CRLF = "\r\n";
+
+    /**
+     * Writes the file (or the ranges of it requested) to the response.
+     * The response is committed afterwards, so controllers calling this should return {@code null}.
+     */
+    public static void serve(File file, MediaType contentType, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long contentLength = file.length();
+        long lastModified = file.lastModified();
+        String eTag = getETag(contentLength, lastModified);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        // Sets `ETag`/`Last-Modified` and, if the client's copy is still valid (or a precondition failed), 304/412
+        if (new ServletWebRequest(request, response).checkNotModified(eTag, lastModified)) {
+            return;
+        }
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+
+        if (rangeHeader == null || !isIfRangeSatisfied(request, eTag, lastModified)) {
+            writeWholeFile(file, contentLength, contentType, request, response);
+
+            return;
+        }
+
+        List<HttpRange> requestedRanges;
+
+        try {
+            requestedRanges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            requestedRanges = List.of();
+        }
+
+        if (requestedRanges.isEmpty()) {
+            // Malformed (or non-byte) ranges are ignored rather than rejected, as if `Range` hadn't been sent
+            log.info("Ignoring invalid range ({}) for file ({})", rangeHeader, file);
+
+            writeWholeFile(file, contentLength, contentType, request, response);
+
+            return;
+        }
+
+        List<ByteRange> ranges = mergeRanges(getSatisfiableRanges(requestedRanges, contentLength));
+
+        if (ranges.isEmpty()) {
+            log.info("Unsatisfiable range ({}) for file ({}) of length {}", rangeHeader, file, contentLength);
+
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength);
+
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+
+            response.setContentType(contentType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, getContentRange(range.start, range.end, contentLength));
+            writeRange(file, range.start, range.end, request, response);
+
+            return;
+        }
+
+        writeMultipartRanges(file, contentLength, contentType, ranges, response);
+    }
+
+    private static void writeWholeFile(
+        File file,
+        long contentLength,
+        MediaType contentType,
+        HttpServletRequest request,
+        HttpServletResponse response
+    ) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(contentType.toString());
+
+        if (contentLength > 0) {
+            writeRange(file, 0, contentLength - 1, request, response);
+        } else {
+            response.setContentLengthLong(0);
+        }
+    }
+
+    /**
+     * Drops ranges that can't be served, i.e. that start past the end of the file or are empty suffix ranges
+     * ({@code bytes=-0}). Ranges ending past the end of the file are cut off at its end.
+     */
+    private static List<ByteRange> getSatisfiableRanges(List<HttpRange> requestedRanges, long contentLength) {
+        List<ByteRange> satisfiableRanges = new ArrayList<>();
+
+        for (int i = 0; i < requestedRanges.size(); i++) {
+            // Neither of these validate the range against the file's length
+            long rangeStart = requestedRanges.get(i).getRangeStart(contentLength);
+            long rangeEnd = requestedRanges.get(i).getRangeEnd(contentLength);
+
+            if (rangeStart < contentLength && rangeStart <= rangeEnd) {
+                satisfiableRanges.add(new ByteRange(rangeStart, rangeEnd, i));
+            }
+        }
+
+        return satisfiableRanges;
+    }
+
+    /**
+     * Coalesces overlapping and adjacent ranges so no bytes are sent twice (and e.g. {@code bytes=0-99,100-199}
+     * is a single part). The merged ranges keep the order in which the client requested them.
+     */
+    private static List<ByteRange> mergeRanges(List<ByteRange> ranges) {
+        List<ByteRange> rangesByStart = new ArrayList<>(ranges);
+        List<ByteRange> mergedRanges = new ArrayList<>();
+
+        rangesByStart.sort(Comparator.comparingLong(range -> range.start));
+
+        for (ByteRange range : rangesByStart) {
+            ByteRange previousRange = mergedRanges.isEmpty() ? null : mergedRanges.get(mergedRanges.size() - 1);
+
+            if (previousRange != null && range.start <= previousRange.end + 1) {
+                mergedRanges.set(mergedRanges.size() - 1, new ByteRange(
+                    previousRange.start,
+                    Math.max(previousRange.end, range.end),
+                    Math.min(previousRange.requestOrder, range.requestOrder)
+                ));
+            } else {
+                mergedRanges.add(range);
+            }
+        }
+
+        mergedRanges.sort(Comparator.comparingInt(range -> range.requestOrder));
+
+        return mergedRanges;
+    }
+
+    private static void writeRange(File file, long rangeStart, long rangeEnd, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long rangeLength = rangeEnd - rangeStart + 1;
+
+        response.setContentLengthLong(rangeLength);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTRIBUTE))) {
+            // Tomcat sends the file straight from the page cache to the socket after this request returns
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, rangeStart);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, rangeEnd + 1);
+
+            return;
+        }
+
+        try (
+            FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            WritableByteChannel responseChannel = Channels.newChannel(response.getOutputStream())
+        ) {
+            transferFully(fileChannel, rangeStart, rangeLength, responseChannel);
+        }
+    }
+
+    private static void writeMultipartRanges(
+        File file,
+        long contentLength,
+        MediaType contentType,
+        List<ByteRange> ranges,
+        HttpServletResponse response
+    ) throws IOException {
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+        List<byte[]> partHeaders = new ArrayList<>();
+        byte[] closingBoundary = (CRLF + "--" + boundary + "--" + CRLF).getBytes(StandardCharsets.US_ASCII);
+        long responseLength = closingBoundary.length;
+
+        for (ByteRange range : ranges) {
+            byte[] partHeader = (
+                CRLF + "--" + boundary + CRLF
+                + HttpHeaders.CONTENT_TYPE + ": " + contentType + CRLF
+                + HttpHeaders.CONTENT_RANGE + ": " + getContentRange(range.start, range.end, contentLength) + CRLF
+                + CRLF
+            ).getBytes(StandardCharsets.US_ASCII);
+
+            partHeaders.add(partHeader);
+            responseLength += partHeader.length + (range.end - range.start + 1);
+        }
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(responseLength);
+
+        try (
+            FileChannel fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            OutputStream responseStream = response.getOutputStream();
+            WritableByteChannel responseChannel = Channels.newChannel(responseStream)
+        ) {
+            for (int i = 0; i < ranges.size(); i++) {
+                ByteRange range = ranges.get(i);
+
+                responseStream.write(partHeaders.get(i));
+                transferFully(fileChannel, range.start, range.end - range.start + 1, responseChannel);
+            }
+
+            responseStream.write(closingBoundary);
+        }
+    }
+
+    // `transferTo()` may transfer fewer bytes than requested
+    private static void transferFully(FileChannel fileChannel, long position, long count, WritableByteChannel target) throws IOException {
+        long bytesTransferred = 0;
+
+        while (bytesTransferred < count) {
+            long numTransferred = fileChannel.transferTo(position + bytesTransferred, count - bytesTransferred, target);
+
+            if (numTransferred <= 0) {
+                // File was truncated while being served
+                throw new IOException("Could only transfer " + bytesTransferred + " of " + count + " bytes");
+            }
+
+            bytesTransferred += numTransferred;
+        }
+    }
+
+    /**
+     * {@code If-Range} only allows serving a range if the client's copy (identified by its ETag or date) is current,
+     * otherwise the whole file is sent.
+     */
+    private static boolean isIfRangeSatisfied(HttpServletRequest request, String eTag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+
+        if (ifRange == null) {
+            return true;
+        }
+
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(eTag);
+        }
+
+        try {
+            // HTTP dates have second precision
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static String getETag(long contentLength, long lastModified) {
+        return "\"" + Long.toHexString(contentLength) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    private static String getContentRange(long rangeStart, long rangeEnd, long contentLength) {
+        return "bytes " + rangeStart + "-" + rangeEnd + "/" + contentLength;
+    }
+
+    private static class ByteRange {
+        private final long start;
+        private final long end;
+        // Index of the (first) requested range this covers
+        private final int requestOrder;
+
+        ByteRange(long start, long end, int requestOrder) {
+            this.start = start;
+            this.end = end;
+            this.requestOrder = requestOrder;
+        }
+    }
+}
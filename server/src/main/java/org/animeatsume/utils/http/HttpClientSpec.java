@@ -0,0 +1,50 @@
+package org.animeatsume.utils.http;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of the shared HTTP client, bound from {@code org.animeatsume.http.*}.
+ */
+@Data
+public class HttpClientSpec {
+    private int maxConnections = 200;
+    private int maxConnectionsPerHost = 20;
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    // Max time between bytes received, not for the whole response (which is bounded by request deadlines instead)
+    private Duration readTimeout = Duration.ofSeconds(15);
+    // Max time to wait for a free connection from the pool
+    private Duration connectionRequestTimeout = Duration.ofSeconds(5);
+    private Duration idleConnectionTimeout = Duration.ofSeconds(30);
+    private Duration connectionTimeToLive = Duration.ofMinutes(5);
+    // Per-host request rate and concurrency limits (see `RequestLimiter`), null for no limit
+    private Double requestsPerSecond;
+    private Integer burst;
+    private Integer maxConcurrentRequests;
+    // Max time a request waits for the above limits before being rejected
+    private Duration limitWaitTimeout = Duration.ofSeconds(2);
+    // Retries of GET/HEAD requests that failed to connect, were reset, or got a 5xx (see `RetryAndHedgeFilter`)
+    private int maxRetries = 0;
+    private Duration retryBackoff = Duration.ofMillis(200);
+    private Duration maxRetryBackoff = Duration.ofSeconds(2);
+    // Send a duplicate of GET/HEAD requests that haven't responded within the host's p95 latency
+    private boolean hedgeRequests = false;
+    private Duration minHedgeDelay = Duration.ofMillis(250);
+    // Overrides for individual hosts (e.g. slow providers), keyed by hostname
+    private Map<String, HostSpec> hosts = new HashMap<>();
+
+    @Data
+    public static class HostSpec {
+        private Integer maxConnections;
+        private Duration connectTimeout;
+        private Duration readTimeout;
+        private Double requestsPerSecond;
+        private Integer burst;
+        private Integer maxConcurrentRequests;
+        private Integer maxRetries;
+        private Boolean hedgeRequests;
+    }
+}
@@ -0,0 +1,314 @@
+package org.animeatsume.utils.http;
+
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.utils.Deadline;
+import org.animeatsume.utils.compression.ContentDecoders;
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.impl.routing.SystemDefaultRoutePlanner;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Single, app-wide HTTP client so that all outgoing requests share one connection pool.
+ *
+ * Connections (and their TLS sessions) are kept alive and reused across requests to the same host,
+ * the number of connections per host is capped so one provider can't exhaust the pool, and every
+ * request has connect/read timeouts, configurable per host.
+ *
+ * Requests made on behalf of a client request are also bound to its {@link Deadline}: their
+ * timeouts are capped at the time remaining and they're cancelled as soon as it expires.
+ */
+@Log4j2
+public class PooledHttpClient {
+    private static volatile HttpClientSpec spec = new HttpClientSpec();
+    private static volatile PoolingHttpClientConnectionManager connectionManager;
+    private static volatile CloseableHttpClient followRedirectsClient;
+    private static volatile CloseableHttpClient noFollowRedirectsClient;
+
+    static {
+        configure(spec);
+    }
+
+    /**
+     * (Re-)creates the shared client with the given configuration.
+     * Request factories created before this will use the new client for their subsequent requests.
+     */
+    public static synchronized void configure(HttpClientSpec newSpec) {
+        PoolingHttpClientConnectionManager newConnectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(newSpec.getMaxConnections())
+            .setMaxConnPerRoute(newSpec.getMaxConnectionsPerHost())
+            .setConnectionTimeToLive(toTimeValue(newSpec.getConnectionTimeToLive()))
+            .setDefaultSocketConfig(SocketConfig.custom()
+                .setSoTimeout(toTimeout(newSpec.getReadTimeout()))
+                .build()
+            )
+            .build();
+
+        newSpec.getHosts().forEach((hostname, hostSpec) -> {
+            if (hostSpec.getMaxConnections() != null) {
+                newConnectionManager.setMaxPerRoute(new HttpRoute(new HttpHost("https", hostname, 443), null, true), hostSpec.getMaxConnections());
+                newConnectionManager.setMaxPerRoute(new HttpRoute(new HttpHost("http", hostname, 80), null, false), hostSpec.getMaxConnections());
+            }
+        });
+
+        CloseableHttpClient oldFollowRedirectsClient = followRedirectsClient;
+        CloseableHttpClient oldNoFollowRedirectsClient = noFollowRedirectsClient;
+        PoolingHttpClientConnectionManager oldConnectionManager = connectionManager;
+
+        spec = newSpec;
+        connectionManager = newConnectionManager;
+        followRedirectsClient = createClientBuilder(newSpec, newConnectionManager).build();
+        noFollowRedirectsClient = createClientBuilder(newSpec, newConnectionManager).disableRedirectHandling().build();
+
+        closeQuietly(oldFollowRedirectsClient);
+        closeQuietly(oldNoFollowRedirectsClient);
+        closeQuietly(oldConnectionManager);
+
+        log.info("Configured shared HTTP client: {}", newSpec);
+    }
+
+    public static HttpClient getHttpClient(boolean followRedirects) {
+        return followRedirects ? followRedirectsClient : noFollowRedirectsClient;
+    }
+
+    /**
+     * @param followRedirects If requests should follow redirects.
+     * @return Request factory that uses the shared client and binds each request to the current {@link Deadline}.
+     */
+    public static HttpComponentsClientHttpRequestFactory createRequestFactory(boolean followRedirects) {
+        return new DeadlineAwareRequestFactory(followRedirects);
+    }
+
+    private static HttpClientBuilder createClientBuilder(HttpClientSpec clientSpec, PoolingHttpClientConnectionManager clientConnectionManager) {
+        return HttpClients.custom()
+            .setConnectionManager(clientConnectionManager)
+            // Both clients use the same pool, so neither may close it
+            .setConnectionManagerShared(true)
+            .evictExpiredConnections()
+            .evictIdleConnections(toTimeValue(clientSpec.getIdleConnectionTimeout()))
+            // Respect JVM proxy settings, which `AppProxy` changes at runtime
+            .setRoutePlanner(new SystemDefaultRoutePlanner(ProxySelector.getDefault()))
+            // Advertises these in `Accept-Encoding` (unless the request sets it) and decompresses responses as they're read
+            .setContentDecoderRegistry(ContentDecoders.getDecoders());
+    }
+
+    private static RequestConfig getRequestConfig(URI uri, Deadline deadline) {
+        HttpClientSpec currentSpec = spec;
+        HttpClientSpec.HostSpec hostSpec = uri.getHost() == null ? null : currentSpec.getHosts().get(uri.getHost());
+        Duration connectTimeout = currentSpec.getConnectTimeout();
+        Duration readTimeout = currentSpec.getReadTimeout();
+
+        if (hostSpec != null) {
+            connectTimeout = hostSpec.getConnectTimeout() != null ? hostSpec.getConnectTimeout() : connectTimeout;
+            readTimeout = hostSpec.getReadTimeout() != null ? hostSpec.getReadTimeout() : readTimeout;
+        }
+
+        Duration connectionRequestTimeout = currentSpec.getConnectionRequestTimeout();
+
+        if (deadline != null) {
+            Duration remainingTime = Duration.ofMillis(Math.max(1, deadline.getRemainingMillis()));
+
+            connectTimeout = min(connectTimeout, remainingTime);
+            readTimeout = min(readTimeout, remainingTime);
+            connectionRequestTimeout = min(connectionRequestTimeout, remainingTime);
+        }
+
+        return RequestConfig.custom()
+            .setConnectTimeout(toTimeout(connectTimeout))
+            .setResponseTimeout(toTimeout(readTimeout))
+            .setConnectionRequestTimeout(toTimeout(connectionRequestTimeout))
+            .build();
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static Timeout toTimeout(Duration duration) {
+        return Timeout.ofMilliseconds(duration.toMillis());
+    }
+
+    private static TimeValue toTimeValue(Duration duration) {
+        return TimeValue.ofMilliseconds(duration.toMillis());
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.error("Could not close previous HTTP client resource. Error = {}", e.getMessage());
+        }
+    }
+
+    private static class DeadlineAwareRequestFactory extends HttpComponentsClientHttpRequestFactory {
+        private final boolean followRedirects;
+
+        DeadlineAwareRequestFactory(boolean followRedirects) {
+            super(getHttpClient(followRedirects));
+
+            this.followRedirects = followRedirects;
+        }
+
+        // Resolve the client per request in case it was re-configured
+        @Override
+        public HttpClient getHttpClient() {
+            return PooledHttpClient.getHttpClient(followRedirects);
+        }
+
+        @Override
+        public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+            return new RateLimitedRequest(super.createRequest(uri, httpMethod));
+        }
+
+        @Override
+        protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+            ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+            Deadline deadline = Deadline.current();
+
+            if (deadline != null && request instanceof Cancellable cancellableRequest) {
+                deadline.onExpire(cancellableRequest::cancel);
+            }
+
+            return request;
+        }
+
+        @Override
+        protected HttpContext createHttpContext(HttpMethod httpMethod, URI uri) {
+            Deadline deadline = Deadline.current();
+
+            if (deadline != null && deadline.isExpired()) {
+                throw new ResourceAccessException("Request deadline expired before the request to (" + uri + ") could be sent");
+            }
+
+            HttpClientContext context = HttpClientContext.create();
+            context.setRequestConfig(getRequestConfig(uri, deadline));
+
+            return context;
+        }
+
+        // The shared client is closed via `configure()`, not by whoever created this factory
+        @Override
+        public void destroy() throws IOException {
+        }
+    }
+
+    /**
+     * Waits for the host's {@link RequestLimiter} permit when executed, releasing it once the response is closed.
+     */
+    private static class RateLimitedRequest implements ClientHttpRequest {
+        private final ClientHttpRequest request;
+
+        RateLimitedRequest(ClientHttpRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public ClientHttpResponse execute() throws IOException {
+            RequestLimiter.Permit permit = RequestLimiter.acquire(getURI().getHost());
+
+            try {
+                return new PermitReleasingResponse(request.execute(), permit);
+            } catch (IOException | RuntimeException e) {
+                permit.release();
+
+                throw e;
+            }
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            return request.getBody();
+        }
+
+        @Override
+        public HttpMethod getMethod() {
+            return request.getMethod();
+        }
+
+        @Override
+        public URI getURI() {
+            return request.getURI();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return request.getHeaders();
+        }
+    }
+
+    private static class PermitReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse response;
+        private final RequestLimiter.Permit permit;
+
+        PermitReleasingResponse(ClientHttpResponse response, RequestLimiter.Permit permit) {
+            this.response = response;
+            this.permit = permit;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        @Deprecated
+        public int getRawStatusCode() throws IOException {
+            return response.getStatusCode().value();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                permit.release();
+            }
+        }
+    }
+}
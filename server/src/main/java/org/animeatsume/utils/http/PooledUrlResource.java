@@ -0,0 +1,104 @@
+package org.animeatsume.utils.http;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+
+/**
+ * {@link org.springframework.core.io.Resource} of a remote URL, fetched through the shared client behind
+ * {@link Requests#getRestTemplate()} rather than {@link org.springframework.core.io.UrlResource}'s own
+ * {@code URLConnection}, so streaming it still goes through the connection pool, {@link RequestLimiter} and deadlines.
+ *
+ * The body is streamed as it's read instead of being buffered like {@code RestTemplate} responses,
+ * and the connection (and limiter permit) is released once the stream is closed.
+ */
+public class PooledUrlResource extends AbstractResource {
+    private final URI uri;
+
+    public PooledUrlResource(URI uri) {
+        this.uri = uri;
+    }
+
+    /**
+     * Makes a HEAD request for the resource's length.
+     *
+     * @return The length, or {@code -1} if the server didn't include it.
+     */
+    @Override
+    public long contentLength() throws IOException {
+        try {
+            return Requests.getRestTemplate().headForHeaders(uri).getContentLength();
+        } catch (RestClientException e) {
+            throw new IOException("Could not get content length of (" + uri + ")", e);
+        }
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        ClientHttpRequest request = Requests.getRestTemplate().getRequestFactory().createRequest(uri, HttpMethod.GET);
+        ClientHttpResponse response = request.execute();
+
+        if (response.getStatusCode().isError()) {
+            response.close();
+
+            throw new IOException("Could not get (" + uri + "). Status = " + response.getStatusCode());
+        }
+
+        return new FilterInputStream(response.getBody()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    response.close();
+                }
+            }
+        };
+    }
+
+    // Otherwise `AbstractResource` checks by opening (and downloading) the whole resource
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public URL getURL() throws MalformedURLException {
+        return uri.toURL();
+    }
+
+    @Override
+    public URI getURI() {
+        return uri;
+    }
+
+    @Override
+    public String getFilename() {
+        return StringUtils.getFilename(uri.getPath());
+    }
+
+    @Override
+    public String getDescription() {
+        return "URL [" + uri + "]";
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other || (other instanceof PooledUrlResource && uri.equals(((PooledUrlResource) other).uri));
+    }
+
+    @Override
+    public int hashCode() {
+        return uri.hashCode();
+    }
+}
@@ -0,0 +1,192 @@
+package org.animeatsume.utils.http;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.utils.Deadline;
+import org.animeatsume.utils.compression.ContentDecoders;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+
+/**
+ * Non-blocking counterpart of {@link PooledHttpClient}, configured by the same {@link HttpClientSpec}.
+ *
+ * Requests don't hold a thread while waiting on the network, so a single instance can have thousands of
+ * upstream calls in flight rather than being capped by the size of the thread pools.
+ */
+@Log4j2
+public class PooledWebClient {
+    // Show pages can be a few MB of HTML, which is well past WebClient's default 256 KB limit
+    private static final int MAX_IN_MEMORY_BODY_SIZE = 16 * 1024 * 1024;
+    private static final String ACCEPT_ENCODING = String.join(", ", ContentDecoders.BROTLI, ContentDecoders.GZIP, ContentDecoders.DEFLATE);
+
+    private static volatile HttpClientSpec spec = new HttpClientSpec();
+    private static volatile ConnectionProvider connectionProvider;
+    private static volatile WebClient followRedirectsClient;
+    private static volatile WebClient noFollowRedirectsClient;
+
+    static {
+        configure(spec);
+    }
+
+    /**
+     * (Re-)creates the shared client with the given configuration.
+     */
+    public static synchronized void configure(HttpClientSpec newSpec) {
+        // Reactor Netty keeps a separate pool per remote host, so its max is the per-host max
+        ConnectionProvider.Builder connectionProviderBuilder = ConnectionProvider.builder("anime-atsume")
+            .maxConnections(newSpec.getMaxConnectionsPerHost())
+            // Requests waiting for a connection don't hold threads, so let them queue (bounded by the acquire timeout)
+            .pendingAcquireMaxCount(-1)
+            .pendingAcquireTimeout(newSpec.getConnectionRequestTimeout())
+            .maxIdleTime(newSpec.getIdleConnectionTimeout())
+            .maxLifeTime(newSpec.getConnectionTimeToLive())
+            .evictInBackground(newSpec.getIdleConnectionTimeout());
+
+        newSpec.getHosts().forEach((hostname, hostSpec) -> {
+            if (hostSpec.getMaxConnections() != null) {
+                connectionProviderBuilder.forRemoteHost(InetSocketAddress.createUnresolved(hostname, 443), hostPoolSpec -> hostPoolSpec.maxConnections(hostSpec.getMaxConnections()));
+                connectionProviderBuilder.forRemoteHost(InetSocketAddress.createUnresolved(hostname, 80), hostPoolSpec -> hostPoolSpec.maxConnections(hostSpec.getMaxConnections()));
+            }
+        });
+
+        ConnectionProvider oldConnectionProvider = connectionProvider;
+
+        spec = newSpec;
+        connectionProvider = connectionProviderBuilder.build();
+        followRedirectsClient = createWebClient(newSpec, connectionProvider, true);
+        noFollowRedirectsClient = createWebClient(newSpec, connectionProvider, false);
+
+        if (oldConnectionProvider != null) {
+            oldConnectionProvider.disposeLater().subscribe();
+        }
+    }
+
+    public static WebClient getWebClient(boolean followRedirects) {
+        return followRedirects ? followRedirectsClient : noFollowRedirectsClient;
+    }
+
+    /**
+     * Binds the request to the current thread's {@link Deadline}, if any, cancelling it once the deadline expires.
+     * Must be called on the thread handling the client request since the deadline is thread-bound.
+     */
+    public static <T> Mono<T> withDeadline(Mono<T> request) {
+        Deadline deadline = Deadline.current();
+
+        if (deadline == null) {
+            return request;
+        }
+
+        return request.timeout(Duration.ofMillis(Math.max(1, deadline.getRemainingMillis())));
+    }
+
+    private static WebClient createWebClient(HttpClientSpec clientSpec, ConnectionProvider clientConnectionProvider, boolean followRedirects) {
+        HttpClient httpClient = HttpClient.create(clientConnectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) clientSpec.getConnectTimeout().toMillis())
+            .responseTimeout(clientSpec.getReadTimeout())
+            // Decompresses gzip/deflate responses in the Netty pipeline; brotli is handled by `getBrotliFilter()`
+            .compress(true)
+            .followRedirect(followRedirects);
+
+        return WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_BODY_SIZE))
+            // Outermost so that each retried/hedged attempt goes through the filters below
+            .filter(new RetryAndHedgeFilter(clientSpec))
+            .filter(getHostTimeoutsFilter(clientSpec))
+            .filter(getRequestLimiterFilter())
+            .filter(getBrotliFilter())
+            .build();
+    }
+
+    /**
+     * Netty only decompresses brotli if its native library is on the classpath, so like {@link PooledHttpClient},
+     * brotli is advertised in {@code Accept-Encoding} and decoded via {@link ContentDecoders} (other encodings are
+     * still decoded by Netty).
+     * Bodies are buffered whole by WebClient anyway, so they're decoded in one go, up to {@link #MAX_IN_MEMORY_BODY_SIZE}.
+     */
+    private static ExchangeFilterFunction getBrotliFilter() {
+        return (request, next) -> next.exchange(ClientRequest.from(request)
+                .headers(headers -> {
+                    if (!headers.containsKey(HttpHeaders.ACCEPT_ENCODING)) {
+                        headers.set(HttpHeaders.ACCEPT_ENCODING, ACCEPT_ENCODING);
+                    }
+                })
+                .build()
+            )
+            .map(response -> {
+                String contentEncoding = response.headers().asHttpHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+
+                if (contentEncoding == null || !contentEncoding.trim().equalsIgnoreCase(ContentDecoders.BROTLI)) {
+                    return response;
+                }
+
+                return response.mutate()
+                    .headers(headers -> {
+                        headers.remove(HttpHeaders.CONTENT_ENCODING);
+                        headers.remove(HttpHeaders.CONTENT_LENGTH);
+                    })
+                    .body(body -> DataBufferUtils.join(body, MAX_IN_MEMORY_BODY_SIZE)
+                        .map(PooledWebClient::decodeBrotli)
+                        .flux()
+                    )
+                    .build();
+            });
+    }
+
+    private static DataBuffer decodeBrotli(DataBuffer compressedBody) {
+        try (InputStream decodedBody = ContentDecoders.decode(ContentDecoders.BROTLI, compressedBody.asInputStream())) {
+            // Anything past the max is rejected by WebClient's codecs, the same as an uncompressed body that's too large
+            return DefaultDataBufferFactory.sharedInstance.wrap(decodedBody.readNBytes(MAX_IN_MEMORY_BODY_SIZE + 1));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode brotli response body", e);
+        } finally {
+            DataBufferUtils.release(compressedBody);
+        }
+    }
+
+    /**
+     * Applies {@link RequestLimiter} limits. Waiting for a permit blocks, so it's done off of the event loop.
+     * The permit is released once the response headers arrive rather than after the body since WebClient
+     * doesn't expose when the body is done being read.
+     */
+    private static ExchangeFilterFunction getRequestLimiterFilter() {
+        return (request, next) -> Mono.fromCallable(() -> RequestLimiter.acquire(request.url().getHost()))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(permit -> next.exchange(request).doFinally(signal -> permit.release()));
+    }
+
+    private static ExchangeFilterFunction getHostTimeoutsFilter(HttpClientSpec clientSpec) {
+        return ExchangeFilterFunction.ofRequestProcessor(request -> {
+            HttpClientSpec.HostSpec hostSpec = clientSpec.getHosts().get(request.url().getHost());
+
+            if (hostSpec == null || hostSpec.getReadTimeout() == null) {
+                return Mono.just(request);
+            }
+
+            return Mono.just(ClientRequest.from(request)
+                .httpRequest(httpRequest -> {
+                    HttpClientRequest nativeRequest = httpRequest.getNativeRequest();
+                    nativeRequest.responseTimeout(hostSpec.getReadTimeout());
+                })
+                .build()
+            );
+        });
+    }
+}
@@ -0,0 +1,191 @@
+package org.animeatsume.utils.http;
+
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.utils.Deadline;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per-host rate limits and concurrency caps (bulkheads) for outgoing requests, configured by {@link HttpClientSpec}.
+ *
+ * Providers throttle or ban us if we hit them with e.g. an episode search per show result all at once,
+ * so requests to the same host are spaced out via a token bucket and capped in how many can be in flight.
+ * Requests over either limit wait briefly for their turn and are rejected if it doesn't come in time.
+ */
+@Log4j2
+public class RequestLimiter {
+    private static volatile HttpClientSpec spec = new HttpClientSpec();
+    private static final Map<String, HostLimits> hostLimits = new ConcurrentHashMap<>();
+
+    public static void configure(HttpClientSpec newSpec) {
+        spec = newSpec;
+        hostLimits.clear();
+    }
+
+    /**
+     * Blocks until a request to the host is allowed.
+     *
+     * @return Permit that must be released once the response has been read.
+     * @throws ResourceAccessException If the host's limits weren't freed up in time.
+     */
+    public static Permit acquire(String host) {
+        if (host == null) {
+            return Permit.NONE;
+        }
+
+        HostLimits limits = hostLimits.computeIfAbsent(host.toLowerCase(), RequestLimiter::createHostLimits);
+
+        if (limits.isUnlimited()) {
+            return Permit.NONE;
+        }
+
+        long waitDeadlineNanos = System.nanoTime() + getMaxWait().toNanos();
+
+        try {
+            if (limits.concurrentRequests != null
+                && !limits.concurrentRequests.tryAcquire(waitDeadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)
+            ) {
+                throw rejected(host, "too many concurrent requests");
+            }
+
+            Permit permit = new Permit(limits.concurrentRequests);
+
+            if (limits.requestRate != null) {
+                long rateLimitWaitNanos = limits.requestRate.reserve(waitDeadlineNanos - System.nanoTime());
+
+                if (rateLimitWaitNanos < 0) {
+                    permit.release();
+
+                    throw rejected(host, "rate limit exceeded");
+                }
+
+                try {
+                    TimeUnit.NANOSECONDS.sleep(rateLimitWaitNanos);
+                } catch (InterruptedException e) {
+                    permit.release();
+
+                    throw e;
+                }
+            }
+
+            return permit;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new ResourceAccessException("Interrupted while waiting to send a request to (" + host + ")");
+        }
+    }
+
+    // Don't wait past the current request's deadline since the response would be thrown out anyway
+    private static Duration getMaxWait() {
+        Duration maxWait = spec.getLimitWaitTimeout();
+        Deadline deadline = Deadline.current();
+
+        if (deadline != null && deadline.getRemainingMillis() < maxWait.toMillis()) {
+            return Duration.ofMillis(Math.max(0, deadline.getRemainingMillis()));
+        }
+
+        return maxWait;
+    }
+
+    private static ResourceAccessException rejected(String host, String reason) {
+        log.warn("Rejected request to ({}): {}", host, reason);
+
+        return new ResourceAccessException("Request to (" + host + ") rejected: " + reason);
+    }
+
+    private static HostLimits createHostLimits(String host) {
+        HttpClientSpec currentSpec = spec;
+        HttpClientSpec.HostSpec hostSpec = currentSpec.getHosts().get(host);
+        Double requestsPerSecond = currentSpec.getRequestsPerSecond();
+        Integer burst = currentSpec.getBurst();
+        Integer maxConcurrentRequests = currentSpec.getMaxConcurrentRequests();
+
+        if (hostSpec != null) {
+            requestsPerSecond = hostSpec.getRequestsPerSecond() != null ? hostSpec.getRequestsPerSecond() : requestsPerSecond;
+            burst = hostSpec.getBurst() != null ? hostSpec.getBurst() : burst;
+            maxConcurrentRequests = hostSpec.getMaxConcurrentRequests() != null ? hostSpec.getMaxConcurrentRequests() : maxConcurrentRequests;
+        }
+
+        return new HostLimits(
+            requestsPerSecond == null ? null : new TokenBucket(requestsPerSecond, burst == null ? 1 : burst),
+            maxConcurrentRequests == null ? null : new Semaphore(maxConcurrentRequests, true)
+        );
+    }
+
+    public static class Permit {
+        static final Permit NONE = new Permit(null);
+
+        private final Semaphore concurrentRequests;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Semaphore concurrentRequests) {
+            this.concurrentRequests = concurrentRequests;
+        }
+
+        // Safe to call multiple times, e.g. from both a failed request and its response
+        public void release() {
+            if (concurrentRequests != null && released.compareAndSet(false, true)) {
+                concurrentRequests.release();
+            }
+        }
+    }
+
+    private static class HostLimits {
+        private final TokenBucket requestRate;
+        private final Semaphore concurrentRequests;
+
+        HostLimits(TokenBucket requestRate, Semaphore concurrentRequests) {
+            this.requestRate = requestRate;
+            this.concurrentRequests = concurrentRequests;
+        }
+
+        boolean isUnlimited() {
+            return requestRate == null && concurrentRequests == null;
+        }
+    }
+
+    // Package-private for tests
+    static class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(double tokensPerSecond, int capacity) {
+            this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, capacity);
+            this.tokens = this.capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * Takes a token, going into debt if none are available so that waiting requests are served in order.
+         *
+         * @return How long to wait before using the token, or -1 (without taking a token) if that's longer than allowed.
+         */
+        synchronized long reserve(long maxWaitNanos) {
+            long now = System.nanoTime();
+
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+
+            double missingTokens = 1 - tokens;
+            long waitNanos = missingTokens <= 0 ? 0 : (long) Math.ceil(missingTokens / tokensPerNano);
+
+            if (waitNanos > maxWaitNanos) {
+                return -1;
+            }
+
+            tokens -= 1;
+
+            return waitNanos;
+        }
+    }
+}
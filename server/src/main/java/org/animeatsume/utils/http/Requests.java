@@ -1,25 +1,27 @@
 package org.animeatsume.utils.http;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.log4j.Log4j2;
 import org.animeatsume.utils.ObjectUtils;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.*;
-import org.springframework.http.client.ClientHttpRequestFactory;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
 import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +30,10 @@ import java.util.stream.Stream;
 
 @Log4j2
 public class Requests {
+    private static final RestTemplate REST_TEMPLATE = newRestTemplate(true);
+    private static final RestTemplate NO_FOLLOW_REDIRECTS_REST_TEMPLATE = newRestTemplate(false);
+    private static final ObjectMapper JSON_PARSER = Jackson2ObjectMapperBuilder.json().build();
+
     public static HttpHeaders copyHttpHeaders(HttpHeaders headers) {
         HttpHeaders copiedHeaders = new HttpHeaders();
 
@@ -56,16 +62,28 @@ public class Requests {
         return new HttpEntity<T>(body, httpHeaders);
     }
 
+    /**
+     * @return Shared template that follows redirects and uses the pooled HTTP client.
+     *         Don't modify it (e.g. adding message converters); use {@link #newRestTemplate(boolean)} for that.
+     */
+    public static RestTemplate getRestTemplate() {
+        return REST_TEMPLATE;
+    }
+
+    /**
+     * @return Shared template that doesn't follow redirects and uses the pooled HTTP client.
+     *         Don't modify it (e.g. adding message converters); use {@link #newRestTemplate(boolean)} for that.
+     */
     public static RestTemplate getNoFollowRedirectsRestTemplate() {
-        ClientHttpRequestFactory noFollowFactory = new SimpleClientHttpRequestFactory() {
-            @Override
-            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
-                super.prepareConnection(connection, httpMethod);
-                connection.setInstanceFollowRedirects(false);
-            }
-        };
+        return NO_FOLLOW_REDIRECTS_REST_TEMPLATE;
+    }
 
-        return new RestTemplate(noFollowFactory);
+    /**
+     * Creates a template that can be customized but still uses the pooled HTTP client.
+     * Create it once and reuse it rather than creating one per request.
+     */
+    public static RestTemplate newRestTemplate(boolean followRedirects) {
+        return new RestTemplate(PooledHttpClient.createRequestFactory(followRedirects));
     }
 
     public static void addAcceptableMediaTypes(RestTemplate restTemplate, MediaType... mediaTypes) {
@@ -89,57 +107,6 @@ public class Requests {
         return new HttpEntity<>(formDataBody, headers);
     }
 
-    public static HttpHeaders headForHeadersWithAcceptAllFallback(
-        URI url,
-        RestTemplate restTemplate,
-        HttpEntity<?> requestEntity
-    ) {
-        HttpHeaders headersForHeadRequest = new HttpHeaders();
-        Object requestBody = null;
-        RestTemplate headRequest = new RestTemplate();
-
-        if (requestEntity != null) {
-            headersForHeadRequest = copyHttpHeaders(requestEntity.getHeaders());
-            requestBody = requestEntity.getBody();
-            headRequest = restTemplate;
-        }
-
-        HttpHeaders headResponseHeaders;
-
-        try {
-            headResponseHeaders = headRequest.headForHeaders(url);
-        } catch (HttpClientErrorException e) {
-            log.error("Error executing HEAD request: status code ({}), response body ({}), error = {}",
-                e.getStatusCode(),
-                e.getResponseBodyAsString(),
-                e.getMessage()
-            );
-            log.info("Attempting HEAD request with 'Accept: */*'...");
-
-            headersForHeadRequest.add(HttpHeaders.ACCEPT, "*/*");
-
-            /*
-             * Use RestTemplate.exchange() instead of .headForHeaders() in
-             * order to add the "Accept: (all)" header to the request and let
-             * it, as well as any other headers in requestEntity, to be passed
-             * along in the HEAD request.
-             *
-             * Since HttpHeaders cannot be parsed by RestTemplate's responseExtractor,
-             * cast it to a MultiValueMap, the superclass of HttpMethod.
-             */
-            ResponseEntity<MultiValueMap> headResponse = headRequest.exchange(
-                url,
-                HttpMethod.HEAD,
-                new HttpEntity<>(requestBody, headersForHeadRequest),
-                MultiValueMap.class
-            );
-
-            headResponseHeaders = headResponse.getHeaders();
-        }
-
-        return headResponseHeaders;
-    }
-
     public static Class<?> getClassFromContentTypeHeader(String contentTypeHeader) {
         List<String> objectType = Arrays.asList("json", "xml");
         List<String> textType = Arrays.asList("text");
@@ -162,6 +129,13 @@ public class Requests {
         return Resource.class;
     }
 
+    /**
+     * Executes a request, decoding the response body to {@code responseType} if possible or to the type
+     * matching the actual response content otherwise.
+     *
+     * The body is only fetched once, as raw bytes, and then decoded locally so that a mismatched
+     * {@code Content-Type} doesn't cost extra round trips to re-request it as a different type.
+     */
     public static <T> ResponseEntity<T> doRequestWithFallback(
         RestTemplate restTemplate,
         URI url,
@@ -169,54 +143,15 @@ public class Requests {
         HttpEntity<?> requestEntity,
         Class<?> responseType
     ) {
-        ResponseEntity<?> response;
-        Object body;
+        ResponseEntity<byte[]> response;
 
         try {
-            try {
-                response = restTemplate.exchange(
-                    url,
-                    method,
-                    requestEntity,
-                    responseType
-                );
-                body = response.getBody();
-            } catch (Exception e) {
-                log.info("Failed to parse response to type ({}), proceeding with getting type from header. Error cause = {}", responseType, e.getMessage());
-
-                if (responseType == String.class && e instanceof HttpStatusCodeException) {
-                    throw e;
-                }
-
-                HttpHeaders responseHeaders = headForHeadersWithAcceptAllFallback(url, restTemplate, requestEntity);
-                List<MediaType> headersAccept = responseHeaders.getAccept();
-                String contentTypeHeader = headersAccept.isEmpty()
-                    ? MediaType.TEXT_PLAIN_VALUE
-                    : headersAccept
-                        .get(headersAccept.size() - 1)
-                        .toString();
-                Class<?> actualResponseTypeClass = getClassFromContentTypeHeader(contentTypeHeader);
-
-                response = restTemplate.exchange(
-                    url,
-                    method,
-                    requestEntity,
-                    actualResponseTypeClass
-                );
-                body = response.getBody();
-
-                if (actualResponseTypeClass == String.class && responseType != String.class) {
-                    // If expecting an object but received a string, it's probably because
-                    // there are invalid characters.
-                    // Thus, attempt to parse the object after removing invalid characters.
-                    Object parsedObject = ObjectUtils.sanitizeAndParseJsonToClass((String) body, responseType);
-
-                    if (parsedObject != null) {
-                        log.info("String from response body successfully parsed to ({})", responseType);
-                        body = parsedObject;
-                    }
-                }
-            }
+            response = restTemplate.exchange(
+                url,
+                method,
+                requestEntity,
+                byte[].class
+            );
         } catch (HttpStatusCodeException e) {
             log.error("Error executing request: status code ({}), response body ({}), error = {}",
                 e.getStatusCode(),
@@ -227,9 +162,120 @@ public class Requests {
             return new ResponseEntity<>((T) e.getResponseBodyAsString(), e.getResponseHeaders(), e.getStatusCode());
         }
 
+        Object body = decodeBody(response.getBody(), response.getHeaders().getContentType(), responseType);
+
         return new ResponseEntity<>((T) body, response.getHeaders(), response.getStatusCode());
     }
 
+    /**
+     * Non-blocking counterpart of {@link #doRequestWithFallback(RestTemplate, URI, HttpMethod, HttpEntity, Class)}.
+     */
+    public static <T> Mono<ResponseEntity<T>> doRequestWithFallbackAsync(
+        WebClient webClient,
+        URI url,
+        HttpMethod method,
+        HttpEntity<?> requestEntity,
+        Class<?> responseType
+    ) {
+        WebClient.RequestBodySpec request = webClient
+            .method(method)
+            .uri(url)
+            .headers(headers -> headers.addAll(requestEntity.getHeaders()));
+        WebClient.RequestHeadersSpec<?> requestWithBody = requestEntity.getBody() == null
+            ? request
+            : request.bodyValue(requestEntity.getBody());
+
+        return requestWithBody
+            .retrieve()
+            .toEntity(byte[].class)
+            .map(response -> new ResponseEntity<T>(
+                (T) decodeBody(response.getBody(), response.getHeaders().getContentType(), responseType),
+                response.getHeaders(),
+                response.getStatusCode()
+            ))
+            .onErrorResume(WebClientResponseException.class, e -> {
+                log.error("Error executing request: status code ({}), response body ({}), error = {}",
+                    e.getStatusCode(),
+                    e.getResponseBodyAsString(),
+                    e.getMessage()
+                );
+
+                return Mono.just(new ResponseEntity<T>((T) e.getResponseBodyAsString(), e.getHeaders(), e.getStatusCode()));
+            });
+    }
+
+    /**
+     * Decodes a raw response body to {@code responseType}, falling back to the type of its actual content
+     * (per {@code Content-Type} or, if that's missing, the body itself) when it can't be decoded as requested.
+     */
+    public static Object decodeBody(@Nullable byte[] body, @Nullable MediaType contentType, Class<?> responseType) {
+        if (body == null) {
+            return null;
+        }
+
+        if (responseType == Resource.class) {
+            return new ByteArrayResource(body);
+        }
+
+        Charset charset = contentType != null && contentType.getCharset() != null
+            ? contentType.getCharset()
+            : StandardCharsets.UTF_8;
+
+        if (responseType == String.class) {
+            return new String(body, charset);
+        }
+
+        Class<?> actualResponseType = contentType != null
+            ? getClassFromContentTypeHeader(contentType.toString())
+            : sniffBodyType(body);
+
+        if (actualResponseType == Resource.class) {
+            log.info("Response body of type ({}) is binary, returning it as a Resource instead of ({})", contentType, responseType);
+
+            return new ByteArrayResource(body);
+        }
+
+        String bodyString = new String(body, charset);
+
+        try {
+            return JSON_PARSER.readValue(bodyString, responseType);
+        } catch (IOException e) {
+            log.info("Failed to parse response to type ({}), attempting to parse it after removing invalid characters. Error cause = {}", responseType, e.getMessage());
+        }
+
+        // If expecting an object but received a string, it's probably because
+        // there are invalid characters.
+        // Thus, attempt to parse the object after removing invalid characters.
+        Object parsedObject = ObjectUtils.sanitizeAndParseJsonToClass(bodyString, responseType);
+
+        if (parsedObject != null) {
+            log.info("String from response body successfully parsed to ({})", responseType);
+
+            return parsedObject;
+        }
+
+        return bodyString;
+    }
+
+    private static Class<?> sniffBodyType(byte[] body) {
+        int numBytesToSniff = Math.min(body.length, 512);
+
+        for (int i = 0; i < numBytesToSniff; i++) {
+            // Text never contains null bytes, whereas nearly all binary formats do within their headers
+            if (body[i] == 0) {
+                return Resource.class;
+            }
+        }
+
+        for (int i = 0; i < numBytesToSniff; i++) {
+            if (!Character.isWhitespace(body[i])) {
+                return body[i] == '{' || body[i] == '[' ? Object.class : String.class;
+            }
+        }
+
+        return String.class;
+    }
+
     /**
      * Proxies/forwards a {@link Resource} from a given URL back to the client.
      *
@@ -241,6 +287,8 @@ public class Requests {
      * the URL; this server would then have to download all the video up until the
      * point the user seeked to (as told by the {@code Range} header), resulting in
      * duplicated/uncached download effort.
+     * Proxied (not downloaded) videos avoid this by going through
+     * {@link org.animeatsume.service.VideoStreamService} instead.
      *
      * @param url The URL of the desired {@link Resource} to proxy back to the client.
      * @return A {@link ResponseEntity} containing the given {@link Resource} in the body
@@ -248,7 +296,7 @@ public class Requests {
      */
     public static ResponseEntity<Resource> getUrlResourceStreamResponse(String url) {
         try {
-            UrlResource urlResource = new UrlResource(url);
+            PooledUrlResource urlResource = new PooledUrlResource(URI.create(url));
 
             return ResponseEntity
                 .status(HttpStatus.PARTIAL_CONTENT)
@@ -258,78 +306,112 @@ public class Requests {
                         .orElse(MediaType.APPLICATION_OCTET_STREAM)
                 )
                 .body(urlResource);
-        } catch (MalformedURLException e) {
-            log.error("Could not get UrlResource of URL ({}). Error:", url);
+        } catch (IllegalArgumentException e) {
+            log.error("Could not get resource of URL ({}). Error:", url);
             e.printStackTrace();
 
             return ResponseEntity.noContent().build();
         }
     }
 
-    private static final long BYTE_LENGTH = 1024;
-    private static final long CHUNK_SIZE_VERY_LOW = BYTE_LENGTH * 256;
-    private static final long CHUNK_SIZE_LOW = BYTE_LENGTH * 512;
-    private static final long CHUNK_SIZE_MED = BYTE_LENGTH * 1024;
-    private static final long CHUNK_SIZE_HIGH = BYTE_LENGTH * 2048;
-    private static final long CHUNK_SIZE_VERY_HIGH = CHUNK_SIZE_HIGH * 2;
+    /**
+     * Makes a HEAD request for the resource's length on every call.
+     * Prefer {@link #getContentRangeStartAndEndAndLength(long, long, HttpHeaders, boolean)} with the length from
+     * {@link org.animeatsume.service.VideoSourceMetadataService} for repeated requests of the same resource.
+     */
+    public static List<Long> getContentRangeStartAndEndAndLength(String url, long rangeSize, HttpHeaders headers, boolean endRangeIsContentLengthIfStartIsZero) {
+        try {
+            long contentLength = new PooledUrlResource(URI.create(url)).contentLength();
+
+            return getContentRangeStartAndEndAndLength(contentLength, rangeSize, headers, endRangeIsContentLengthIfStartIsZero);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Could not get resource or ResourceRegion for URL ({})", url);
+            e.printStackTrace();
+        }
+
+        return Arrays.asList(0L, rangeSize - 1, 0L);
+    }
+
+    /**
+     * @param contentLength Length of the resource, or {@code <= 0} if unknown.
+     *                      Only suffix ranges (e.g. {@code bytes=-500}), which video players don't use, need it.
+     * @return First byte requested by the {@code Range} header, or 0 if there isn't one.
+     */
+    public static long getRangeStart(HttpHeaders headers, long contentLength) {
+        if (headers.getRange().isEmpty()) {
+            return 0;
+        }
 
-    public static List<Long> getContentRangeStartAndEndAndLength(String url, HttpHeaders headers, boolean endRangeIsContentLengthIfStartIsZero) {
-        long chunkSize = CHUNK_SIZE_VERY_HIGH; // TODO choose which chunk size to use from above
+        return headers.getRange().get(0).getRangeStart(contentLength > 0 ? contentLength : Long.MAX_VALUE);
+    }
 
-        try {
-            UrlResource urlResource = new UrlResource(url);
-            long contentLength = urlResource.contentLength();
-            HttpRange range = headers.getRange().isEmpty() ? null : headers.getRange().get(0);
+    /**
+     * Gets the (inclusive) range to serve for the request's {@code Range} header.
+     *
+     * @param rangeSize Max number of bytes to serve (see {@link org.animeatsume.service.VideoRangeSizer}).
+     *                  Smaller ranges explicitly requested by the client are served as-is.
+     * @return {@code [rangeStart, rangeEnd, contentLength]}
+     */
+    public static List<Long> getContentRangeStartAndEndAndLength(long contentLength, long rangeSize, HttpHeaders headers, boolean endRangeIsContentLengthIfStartIsZero) {
+        HttpRange range = headers.getRange().isEmpty() ? null : headers.getRange().get(0);
 
-            long headerRangeStart = 0;
+        long headerRangeStart = 0;
+        long headerRangeEnd = contentLength - 1;
 
-            if (range != null) {
-                headerRangeStart = range.getRangeStart(contentLength);
-            }
+        if (range != null) {
+            headerRangeStart = range.getRangeStart(contentLength);
+            headerRangeEnd = range.getRangeEnd(contentLength);
+        }
 
-            if (headerRangeStart == 0L) {
-                long rangeEnd = endRangeIsContentLengthIfStartIsZero
-                    ? contentLength-1
-                    : chunkSize;
+        if (headerRangeStart == 0L && endRangeIsContentLengthIfStartIsZero) {
+            return Arrays.asList(0L, contentLength - 1, contentLength);
+        }
 
-                return Arrays.asList(0L, rangeEnd, contentLength);
-            }
+        long rangeEnd = Math.min(headerRangeEnd, headerRangeStart + rangeSize - 1);
 
-            long resourceLengthLeftToServe = contentLength - headerRangeStart + 1;
-            long rangeLength = Math.min(chunkSize, resourceLengthLeftToServe);
-            long rangeEnd = headerRangeStart + rangeLength;
+        return Arrays.asList(headerRangeStart, rangeEnd, contentLength);
+    }
 
-            return Arrays.asList(headerRangeStart, rangeEnd, contentLength);
-        } catch (IOException e) {
-            log.error("Could not get UrlResource or ResourceRegion for URL ({})", url);
+    /**
+     * Makes a HEAD request for the resource's length on every call.
+     * Prefer {@link #getUrlResourceRegion(String, long, long, HttpHeaders)} with the length from
+     * {@link org.animeatsume.service.VideoSourceMetadataService} for repeated requests of the same resource.
+     */
+    public static ResourceRegion getUrlResourceRegion(String url, long rangeSize, HttpHeaders headers) {
+        try {
+            long contentLength = new PooledUrlResource(URI.create(url)).contentLength();
+
+            return getUrlResourceRegion(url, contentLength, rangeSize, headers);
+        } catch (IOException | IllegalArgumentException e) {
+            log.error("Could not get resource or ResourceRegion for URL ({})", url);
             e.printStackTrace();
         }
 
-        return Arrays.asList(0L, chunkSize, 0L);
+        return null;
     }
 
-    public static ResourceRegion getUrlResourceRegion(String url, HttpHeaders headers) {
-        long chunkSize = CHUNK_SIZE_MED; // TODO choose which chunk size to use from above
-
+    /**
+     * @param rangeSize Max number of bytes in the region (see {@link org.animeatsume.service.VideoRangeSizer}).
+     */
+    public static ResourceRegion getUrlResourceRegion(String url, long contentLength, long rangeSize, HttpHeaders headers) {
         try {
-            UrlResource urlResource = new UrlResource(url);
-            long contentLength = urlResource.contentLength();
+            PooledUrlResource urlResource = new PooledUrlResource(URI.create(url));
             HttpRange range = headers.getRange().isEmpty() ? null : headers.getRange().get(0);
 
             if (range != null) {
                 long rangeStart = range.getRangeStart(contentLength);
                 long rangeEnd = range.getRangeEnd(contentLength);
                 long resourceLength = rangeEnd - rangeStart + 1;
-                long rangeLength = Math.min(chunkSize, resourceLength);
+                long rangeLength = Math.min(rangeSize, resourceLength);
 
                 return new ResourceRegion(urlResource, rangeStart, rangeLength);
             } else {
-                long rangeLength = Math.min(chunkSize, contentLength);
+                long rangeLength = Math.min(rangeSize, contentLength);
 
                 return new ResourceRegion(urlResource, 0, rangeLength);
             }
-        } catch (IOException e) {
-            log.error("Could not get UrlResource or ResourceRegion for URL ({})", url);
+        } catch (IllegalArgumentException e) {
+            log.error("Could not get resource or ResourceRegion for URL ({})", url);
             e.printStackTrace();
         }
 
@@ -0,0 +1,166 @@
+package org.animeatsume.utils.http;
+
+import lombok.extern.log4j.Log4j2;
+import org.animeatsume.utils.RollingStats;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Retries and hedges idempotent ({@code GET}/{@code HEAD}) requests, configured per host by {@link HttpClientSpec}.
+ *
+ * - Retries: Requests that couldn't connect, had their connection reset, or got a 5xx are retried
+ *   with jittered exponential backoff.
+ * - Hedging: If a request hasn't responded within the host's recent p95 latency, a duplicate is sent and
+ *   whichever responds first is used, so one slow response doesn't stall e.g. a whole show search.
+ */
+@Log4j2
+class RetryAndHedgeFilter implements ExchangeFilterFunction {
+    private static final int LATENCY_WINDOW_SIZE = 50;
+    // Below this, p95 is too noisy to hedge on
+    private static final int MIN_SAMPLES_FOR_HEDGING = 10;
+    private static final double BACKOFF_JITTER = 0.5;
+
+    private final HttpClientSpec spec;
+    private final Map<String, RollingStats> hostLatencies = new ConcurrentHashMap<>();
+
+    RetryAndHedgeFilter(HttpClientSpec spec) {
+        this.spec = spec;
+    }
+
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET && request.method() != HttpMethod.HEAD) {
+            return next.exchange(request);
+        }
+
+        String host = request.url().getHost();
+        HttpClientSpec.HostSpec hostSpec = host == null ? null : spec.getHosts().get(host);
+        int maxRetries = hostSpec != null && hostSpec.getMaxRetries() != null ? hostSpec.getMaxRetries() : spec.getMaxRetries();
+        boolean hedgeRequests = hostSpec != null && hostSpec.getHedgeRequests() != null ? hostSpec.getHedgeRequests() : spec.isHedgeRequests();
+
+        Mono<ClientResponse> exchange = hedgeRequests
+            ? hedge(request, next, host)
+            : attempt(request, next, host);
+
+        if (maxRetries <= 0) {
+            return exchange;
+        }
+
+        return exchange.retryWhen(Retry.backoff(maxRetries, spec.getRetryBackoff())
+            .maxBackoff(spec.getMaxRetryBackoff())
+            .jitter(BACKOFF_JITTER)
+            .filter(RetryAndHedgeFilter::isRetryable)
+            .doBeforeRetry(retry -> log.info("Retrying ({}) after attempt {} failed. Error = {}",
+                request.url(),
+                retry.totalRetries() + 1,
+                retry.failure().getMessage()
+            ))
+            .onRetryExhaustedThrow((retrySpec, retry) -> retry.failure())
+        );
+    }
+
+    private Mono<ClientResponse> hedge(ClientRequest request, ExchangeFunction next, String host) {
+        RollingStats latencies = getLatencies(host);
+
+        if (latencies.getSampleCount() < MIN_SAMPLES_FOR_HEDGING) {
+            return attempt(request, next, host);
+        }
+
+        Duration hedgeDelay = Duration.ofMillis(Math.max(spec.getMinHedgeDelay().toMillis(), latencies.getLatencyPercentile(0.95)));
+
+        // Per subscription so that retries hedge again
+        return Mono.defer(() -> {
+            AtomicBoolean responded = new AtomicBoolean();
+            Mono<ClientResponse> firstAttempt = attempt(request, next, host);
+            Mono<ClientResponse> hedgedAttempt = Mono.delay(hedgeDelay)
+                .doOnNext(ignored -> log.debug("No response from ({}) after {}, sending hedged request", request.url(), hedgeDelay))
+                .then(attempt(request, next, host));
+
+            // The slower request is cancelled as soon as the other responds
+            return Mono.firstWithValue(
+                releaseIfAlreadyResponded(firstAttempt, responded),
+                releaseIfAlreadyResponded(hedgedAttempt, responded)
+            ).onErrorMap(NoSuchElementException.class, RetryAndHedgeFilter::getAttemptError);
+        });
+    }
+
+    /**
+     * If both attempts fail, {@link Mono#firstWithValue(Mono, Mono[])} errors with a {@link NoSuchElementException}
+     * holding the attempts' errors as suppressed exceptions of its cause. Those are unwrapped so that retries
+     * and callers (e.g. {@code onErrorResume(WebClientResponseException.class, ...)}) see the actual error.
+     */
+    private static Throwable getAttemptError(NoSuchElementException error) {
+        Throwable attemptErrors = error.getCause();
+
+        if (attemptErrors == null) {
+            return error;
+        }
+
+        return attemptErrors.getSuppressed().length > 0
+            ? attemptErrors.getSuppressed()[0]
+            : attemptErrors;
+    }
+
+    /**
+     * If both attempts respond at about the same time, the slower one can't be cancelled anymore and its response
+     * would be dropped without being read, leaking its pooled connection. Instead, only the first response is used
+     * and any later one's body is released.
+     */
+    private static Mono<ClientResponse> releaseIfAlreadyResponded(Mono<ClientResponse> attempt, AtomicBoolean responded) {
+        return attempt.flatMap(response -> responded.compareAndSet(false, true)
+            ? Mono.just(response)
+            : response.releaseBody().then(Mono.empty())
+        );
+    }
+
+    /**
+     * Sends the request, turning 5xx responses into errors so they can be retried.
+     * The errors are {@link WebClientResponseException}s so callers handle them the same as they would the response.
+     */
+    private Mono<ClientResponse> attempt(ClientRequest request, ExchangeFunction next, String host) {
+        return Mono.defer(() -> {
+            long startTime = System.currentTimeMillis();
+
+            return next.exchange(request).flatMap(response -> {
+                getLatencies(host).record(System.currentTimeMillis() - startTime, !response.statusCode().is5xxServerError());
+
+                if (response.statusCode().is5xxServerError()) {
+                    return response.createException().flatMap(Mono::error);
+                }
+
+                return Mono.just(response);
+            });
+        });
+    }
+
+    private RollingStats getLatencies(String host) {
+        return hostLatencies.computeIfAbsent(String.valueOf(host), key -> new RollingStats(LATENCY_WINDOW_SIZE));
+    }
+
+    private static boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+
+        // Connection refused/reset, closed before responding, etc.
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
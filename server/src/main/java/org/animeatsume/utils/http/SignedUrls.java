@@ -0,0 +1,136 @@
+package org.animeatsume.utils.http;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Helpers for signed/tokenized media URLs, i.e. URLs that stop working after some time,
+ * so that anything derived from them can be cached for exactly as long as they're valid.
+ */
+@Log4j2
+public class SignedUrls {
+    // Query params holding an absolute expiration time, in epoch seconds (or millis).
+    // Only names that unambiguously mean expiration, since short/generic ones (e.g. `e`) are often IDs.
+    private static final Set<String> EXPIRATION_TIME_PARAMS = Set.of("expires", "expire", "expiry", "expiration", "exp", "validto");
+    // Params (by vendor) holding a relative expiration time in seconds and the time the URL was signed
+    private static final Map<String, String> SIGNED_DURATION_PARAM_TO_SIGNED_DATE_PARAM = Map.of(
+        "x-amz-expires", "x-amz-date",
+        "x-goog-expires", "x-goog-date"
+    );
+    private static final DateTimeFormatter SIGNED_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    // Anything past this is likely something other than an epoch-seconds timestamp
+    private static final long MAX_EPOCH_SECONDS = Instant.parse("2100-01-01T00:00:00Z").getEpochSecond();
+    // Expirations outside of this window around now are more likely IDs or other numbers that happen to look like epochs.
+    // Recently expired URLs are still recognized so they aren't cached.
+    private static final Duration MAX_TIME_SINCE_EXPIRATION = Duration.ofDays(1);
+    private static final Duration MAX_TIME_UNTIL_EXPIRATION = Duration.ofDays(365);
+
+    /**
+     * Infers when a URL expires from its query parameters, e.g. {@code ?expires=1700000000}
+     * or AWS/GCS-style {@code ?X-Amz-Date=20230101T000000Z&X-Amz-Expires=3600}.
+     *
+     * @param url - URL to check.
+     * @return The URL's expiration time, or {@code null} if it doesn't appear to expire.
+     */
+    public static Instant getExpiration(String url) {
+        Map<String, List<String>> queryParams = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        try {
+            queryParams.putAll(UriParser.getQueryParams(URI.create(url)));
+        } catch (Exception e) {
+            return null;
+        }
+
+        Instant expiration = null;
+
+        for (String expirationParam : EXPIRATION_TIME_PARAMS) {
+            expiration = getEarliest(expiration, parseEpochTime(getFirstValue(queryParams, expirationParam)));
+        }
+
+        for (Map.Entry<String, String> signedParams : SIGNED_DURATION_PARAM_TO_SIGNED_DATE_PARAM.entrySet()) {
+            String signedDuration = getFirstValue(queryParams, signedParams.getKey());
+            String signedDate = getFirstValue(queryParams, signedParams.getValue());
+
+            if (signedDuration != null && signedDate != null) {
+                try {
+                    Instant signedTime = Instant.from(SIGNED_DATE_FORMATTER.parse(signedDate));
+
+                    expiration = getEarliest(expiration, signedTime.plusSeconds(Long.parseLong(signedDuration)));
+                } catch (Exception e) {
+                    log.debug("Could not parse signed URL params {}={} and {}={}", signedParams.getValue(), signedDate, signedParams.getKey(), signedDuration);
+                }
+            }
+        }
+
+        return expiration;
+    }
+
+    /**
+     * @param urls - URLs to check.
+     * @param safetyMargin - Time before expiration to stop considering a URL valid,
+     *                       so it isn't handed out right before it stops working.
+     * @return How long all the URLs are still valid for, or {@code null} if none of them expire.
+     */
+    public static Duration getTimeToLive(List<String> urls, Duration safetyMargin) {
+        Instant earliestExpiration = null;
+
+        for (String url : urls) {
+            earliestExpiration = getEarliest(earliestExpiration, getExpiration(url));
+        }
+
+        if (earliestExpiration == null) {
+            return null;
+        }
+
+        Duration timeToLive = Duration.between(Instant.now(), earliestExpiration).minus(safetyMargin);
+
+        return timeToLive.isNegative() ? Duration.ZERO : timeToLive;
+    }
+
+    private static String getFirstValue(Map<String, List<String>> queryParams, String key) {
+        List<String> values = queryParams.get(key);
+
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+    private static Instant parseEpochTime(String epochTime) {
+        if (epochTime == null || !epochTime.matches("\\d{9,13}")) {
+            return null;
+        }
+
+        long epochValue = Long.parseLong(epochTime);
+        Instant expiration = epochValue > MAX_EPOCH_SECONDS
+            ? Instant.ofEpochMilli(epochValue)
+            : Instant.ofEpochSecond(epochValue);
+        Instant now = Instant.now();
+
+        if (expiration.isBefore(now.minus(MAX_TIME_SINCE_EXPIRATION)) || expiration.isAfter(now.plus(MAX_TIME_UNTIL_EXPIRATION))) {
+            log.debug("Ignoring implausible URL expiration time ({})", epochTime);
+
+            return null;
+        }
+
+        return expiration;
+    }
+
+    private static Instant getEarliest(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+
+        if (b == null) {
+            return a;
+        }
+
+        return a.isBefore(b) ? a : b;
+    }
+}
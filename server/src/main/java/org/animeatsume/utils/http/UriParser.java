@@ -68,17 +68,21 @@ public class UriParser {
      * @see <a href="https://stackoverflow.com/questions/13592236/parse-a-uri-string-into-name-value-collection/13592567#13592567">SO answer on query param extraction</a>
      */
     public static Map<String, List<String>> getQueryParams(URI uri) {
+        if (uri.getQuery() == null || uri.getQuery().isEmpty()) {
+            return new HashMap<>();
+        }
+
         // URI.getQuery() already decodes keys/values, so no decoding necessary here
         return Arrays.stream(uri.getQuery().split("&"))
             .reduce(new HashMap<>(), (map, keyValPair) -> {
-                String[] keyValSplit = keyValPair.split("=");
+                String[] keyValSplit = keyValPair.split("=", 2);
                 String key = keyValSplit[0];
-                String val = keyValSplit[1];
+                String val = keyValSplit.length > 1 ? keyValSplit[1] : "";
 
                 if (map.get(key) != null && !map.get(key).isEmpty()) {
                     map.get(key).add(val);
                 } else {
-                    map.put(key, Arrays.asList(val));
+                    map.put(key, new ArrayList<>(Arrays.asList(val)));
                 }
 
                 return map;
@@ -0,0 +1,105 @@
+package org.animeatsume.controller;
+
+import org.animeatsume.model.Anchor;
+import org.animeatsume.model.TitlesAndEpisodes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EpisodePrefetcherTest {
+    // Configured like `ApplicationConfig.prefetchExecutor`, with a single thread and queue slot so it's easy to fill
+    private final ThreadPoolTaskExecutor prefetchExecutor = newPrefetchExecutor();
+    private final EpisodePrefetcher episodePrefetcher = new EpisodePrefetcher(prefetchExecutor, 1, 100);
+
+    private static ThreadPoolTaskExecutor newPrefetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    private static TitlesAndEpisodes.EpisodesForTitle newShow(String showUrl) {
+        return new TitlesAndEpisodes.EpisodesForTitle(showUrl, "Show", List.of(
+            new Anchor(showUrl + "/ep-1", "Episode 1"),
+            new Anchor(showUrl + "/ep-2", "Episode 2")
+        ));
+    }
+
+    @AfterEach
+    void shutDownExecutor() {
+        prefetchExecutor.shutdown();
+    }
+
+    @Test
+    void prefetchesEpisodesRejectedByFullQueueLater() throws InterruptedException {
+        CountDownLatch unblockPrefetches = new CountDownLatch(1);
+        Set<String> prefetchedUrls = ConcurrentHashMap.newKeySet();
+        CountDownLatch retriedPrefetch = new CountDownLatch(1);
+
+        // Occupies the only thread, then the only queue slot
+        episodePrefetcher.prefetchFirstEpisode(newShow("https://example.com/a"), url -> await(unblockPrefetches));
+        episodePrefetcher.prefetchFirstEpisode(newShow("https://example.com/b"), url -> await(unblockPrefetches));
+
+        // Rejected since the queue is full
+        episodePrefetcher.prefetchFirstEpisode(newShow("https://example.com/c"), prefetchedUrls::add);
+
+        unblockPrefetches.countDown();
+
+        // Wait for the queue to drain so the retry isn't rejected too
+        waitUntilIdle();
+
+        episodePrefetcher.prefetchFirstEpisode(newShow("https://example.com/c"), url -> {
+            prefetchedUrls.add(url);
+            retriedPrefetch.countDown();
+        });
+
+        assertThat(retriedPrefetch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(prefetchedUrls).containsExactly("https://example.com/c/ep-1");
+    }
+
+    @Test
+    void doesNotPrefetchEpisodesAlreadyInFlight() throws InterruptedException {
+        CountDownLatch unblockPrefetch = new CountDownLatch(1);
+        Set<String> prefetchedUrls = ConcurrentHashMap.newKeySet();
+
+        episodePrefetcher.prefetchFirstEpisode(newShow("https://example.com/a"), url -> await(unblockPrefetch));
+        episodePrefetcher.prefetchFirstEpisode(newShow("https://example.com/a"), prefetchedUrls::add);
+
+        unblockPrefetch.countDown();
+        waitUntilIdle();
+
+        assertThat(prefetchedUrls).isEmpty();
+    }
+
+    private void waitUntilIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (prefetchExecutor.getActiveCount() > 0 || !prefetchExecutor.getThreadPoolExecutor().getQueue().isEmpty()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package org.animeatsume.controller;
+
+import org.animeatsume.model.TitleSearchRequest;
+import org.animeatsume.model.TitlesAndEpisodes;
+import org.animeatsume.utils.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProviderRegistryTest {
+    private static final String PROVIDER_NAME = "testProvider";
+    private static final ProviderRegistry.Operation OPERATION = ProviderRegistry.Operation.SEARCH_SHOWS;
+
+    private final AtomicReference<Supplier<TitlesAndEpisodes>> searchResults = new AtomicReference<>();
+    private ProviderRegistry providerRegistry;
+
+    @BeforeEach
+    void createProviderRegistry() {
+        ShowSearchController provider = new ShowSearchController() {
+            public TitlesAndEpisodes searchShows(TitleSearchRequest request) {
+                return searchResults.get().get();
+            }
+
+            public TitlesAndEpisodes.EpisodesForTitle getVideosForEpisode(String url) {
+                return null;
+            }
+        };
+
+        providerRegistry = new ProviderRegistry(Map.of(PROVIDER_NAME, provider));
+
+        // Same as application.properties
+        ReflectionTestUtils.setField(providerRegistry, "disabledSearchProviders", new String[0]);
+        ReflectionTestUtils.setField(providerRegistry, "disabledVideoProviders", new String[0]);
+        ReflectionTestUtils.setField(providerRegistry, "statsWindowSize", 50);
+        ReflectionTestUtils.setField(providerRegistry, "minSamplesForRanking", 5);
+        ReflectionTestUtils.setField(providerRegistry, "minHealthySuccessRate", 0.5);
+        ReflectionTestUtils.setField(providerRegistry, "circuitBreakerWindowSize", 20);
+        ReflectionTestUtils.setField(providerRegistry, "circuitBreakerMinCalls", 5);
+        ReflectionTestUtils.setField(providerRegistry, "circuitBreakerFailureRateThreshold", 0.5);
+        ReflectionTestUtils.setField(providerRegistry, "circuitBreakerSlowCallThreshold", Duration.ofSeconds(15));
+        ReflectionTestUtils.setField(providerRegistry, "circuitBreakerOpenDuration", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(providerRegistry, "circuitBreakerHalfOpenTrialCalls", 1);
+    }
+
+    private TitlesAndEpisodes search() {
+        return providerRegistry.call(PROVIDER_NAME, OPERATION, provider -> provider.searchTitles(new TitleSearchRequest()), Objects::nonNull);
+    }
+
+    @Test
+    void countsSearchesWithoutMatchesAsSuccessful() {
+        searchResults.set(TitlesAndEpisodes::new);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(search()).isNotNull();
+        }
+
+        assertThat(providerRegistry.getCircuitBreaker(PROVIDER_NAME, OPERATION).getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(providerRegistry.getStats(PROVIDER_NAME, OPERATION).getSuccessRate()).isEqualTo(1);
+        assertThat(providerRegistry.isHealthy(PROVIDER_NAME, OPERATION)).isTrue();
+    }
+
+    @Test
+    void countsNullResultsAsFailures() {
+        searchResults.set(() -> null);
+
+        for (int i = 0; i < 5; i++) {
+            search();
+        }
+
+        assertThat(providerRegistry.getCircuitBreaker(PROVIDER_NAME, OPERATION).getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(providerRegistry.isHealthy(PROVIDER_NAME, OPERATION)).isFalse();
+    }
+
+    @Test
+    void countsExceptionsAsFailures() {
+        searchResults.set(() -> {
+            throw new IllegalStateException("Could not parse search results");
+        });
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(search()).isNull();
+        }
+
+        assertThat(providerRegistry.getCircuitBreaker(PROVIDER_NAME, OPERATION).getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Skipped while the circuit is open
+        searchResults.set(TitlesAndEpisodes::new);
+
+        assertThat(search()).isNull();
+    }
+}
@@ -0,0 +1,169 @@
+package org.animeatsume.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VideoRangeSizerTest {
+    private static final String CLIENT_ID = "127.0.0.1";
+    private static final String VIDEO_URL = "https://example.com/video.mp4";
+    private static final long MIN_RANGE_SIZE = DataSize.ofMegabytes(1).toBytes();
+    private static final long MAX_RANGE_SIZE = DataSize.ofMegabytes(16).toBytes();
+    // Plays at 1000 B/ms over the typical video duration, so the min buffer time is worth 10 MB
+    private static final long CONTENT_LENGTH = Duration.ofMinutes(24).toMillis() * 1000;
+    private static final long MIN_BUFFER_BYTES = Duration.ofSeconds(10).toMillis() * 1000;
+
+    private static VideoRangeSizer newVideoRangeSizer() {
+        return new VideoRangeSizer(
+            DataSize.ofBytes(MIN_RANGE_SIZE),
+            DataSize.ofBytes(MAX_RANGE_SIZE),
+            Duration.ofSeconds(2),
+            Duration.ofSeconds(10),
+            Duration.ofMinutes(24),
+            Duration.ofMinutes(1)
+        );
+    }
+
+    // Requests a range the way `VideoStreamService` does, returning its size
+    private static long serveRange(VideoRangeSizer videoRangeSizer, long rangeStart, long contentLength) {
+        return serveRange(videoRangeSizer, CLIENT_ID, rangeStart, contentLength);
+    }
+
+    private static long serveRange(VideoRangeSizer videoRangeSizer, String clientId, long rangeStart, long contentLength) {
+        long rangeSize = videoRangeSizer.getRangeSize(clientId, VIDEO_URL, rangeStart, contentLength);
+
+        videoRangeSizer.recordServedRange(clientId, VIDEO_URL, rangeStart, rangeStart + rangeSize - 1);
+
+        return rangeSize;
+    }
+
+    @Test
+    void servesSmallRangeToStartStream() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+
+        assertThat(serveRange(videoRangeSizer, 0, CONTENT_LENGTH)).isEqualTo(MIN_RANGE_SIZE);
+        assertThat(videoRangeSizer.isPlayingLinearly(CLIENT_ID, VIDEO_URL)).isFalse();
+    }
+
+    @Test
+    void growsRangesByAtMostDoubleWhilePlayingLinearly() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+        long rangeStart = 0;
+        long previousRangeSize = 0;
+
+        for (long expectedRangeSize : new long[] { MIN_RANGE_SIZE, 2 * MIN_RANGE_SIZE, 4 * MIN_RANGE_SIZE, 8 * MIN_RANGE_SIZE, MIN_BUFFER_BYTES }) {
+            long rangeSize = serveRange(videoRangeSizer, rangeStart, CONTENT_LENGTH);
+
+            assertThat(rangeSize).isEqualTo(expectedRangeSize);
+
+            rangeStart += rangeSize;
+            previousRangeSize = rangeSize;
+        }
+
+        assertThat(videoRangeSizer.isPlayingLinearly(CLIENT_ID, VIDEO_URL)).isTrue();
+        // Enough to cover the min buffer time, so it stops growing
+        assertThat(serveRange(videoRangeSizer, rangeStart, CONTENT_LENGTH)).isEqualTo(previousRangeSize);
+    }
+
+    @Test
+    void servesSmallRangeAfterSeeking() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+        long rangeStart = 0;
+
+        for (int i = 0; i < 3; i++) {
+            rangeStart += serveRange(videoRangeSizer, rangeStart, CONTENT_LENGTH);
+        }
+
+        assertThat(serveRange(videoRangeSizer, CONTENT_LENGTH / 2, CONTENT_LENGTH)).isEqualTo(MIN_RANGE_SIZE);
+        assertThat(videoRangeSizer.isPlayingLinearly(CLIENT_ID, VIDEO_URL)).isFalse();
+        assertThat(serveRange(videoRangeSizer, CONTENT_LENGTH / 2 + MIN_RANGE_SIZE, CONTENT_LENGTH)).isEqualTo(2 * MIN_RANGE_SIZE);
+    }
+
+    @Test
+    void capsRangesAtMaxRangeSize() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+        long contentLength = 100 * CONTENT_LENGTH;
+        long rangeStart = 0;
+        long rangeSize = 0;
+
+        for (int i = 0; i < 8; i++) {
+            rangeSize = serveRange(videoRangeSizer, rangeStart, contentLength);
+            rangeStart += rangeSize;
+        }
+
+        assertThat(rangeSize).isEqualTo(MAX_RANGE_SIZE);
+    }
+
+    @Test
+    void neverServesLessThanMinRangeSize() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+        long contentLength = DataSize.ofMegabytes(50).toBytes();
+
+        serveRange(videoRangeSizer, 0, contentLength);
+
+        assertThat(serveRange(videoRangeSizer, MIN_RANGE_SIZE, contentLength)).isEqualTo(MIN_RANGE_SIZE);
+    }
+
+    @Test
+    void growsRangesOnFastLinksEvenForLowBitrateVideos() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+        long contentLength = DataSize.ofMegabytes(50).toBytes();
+        long rangeStart = 0;
+
+        // 8 MB/s, so 16 MB can be fetched within the target fetch time
+        videoRangeSizer.recordUpstreamFetch(VIDEO_URL, DataSize.ofMegabytes(8).toBytes(), 1000);
+
+        for (int i = 0; i < 5; i++) {
+            rangeStart += serveRange(videoRangeSizer, rangeStart, contentLength);
+        }
+
+        assertThat(serveRange(videoRangeSizer, rangeStart, contentLength)).isEqualTo(MAX_RANGE_SIZE);
+    }
+
+    @Test
+    void tracksEachVideoSeparately() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+        long rangeSize = serveRange(videoRangeSizer, 0, CONTENT_LENGTH);
+
+        serveRange(videoRangeSizer, rangeSize, CONTENT_LENGTH);
+
+        assertThat(videoRangeSizer.getRangeSize(CLIENT_ID, "https://example.com/other.mp4", rangeSize, CONTENT_LENGTH)).isEqualTo(MIN_RANGE_SIZE);
+        assertThat(videoRangeSizer.isPlayingLinearly(CLIENT_ID, "https://example.com/other.mp4")).isFalse();
+        assertThat(videoRangeSizer.isPlayingLinearly(CLIENT_ID, VIDEO_URL)).isTrue();
+    }
+
+    @Test
+    void tracksEachClientOfAVideoSeparately() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+        String otherClientId = "127.0.0.2";
+        long rangeStart = 0;
+
+        for (int i = 0; i < 3; i++) {
+            rangeStart += serveRange(videoRangeSizer, rangeStart, CONTENT_LENGTH);
+        }
+
+        // Starting at the start of the video isn't a seek by the first client
+        assertThat(serveRange(videoRangeSizer, otherClientId, 0, CONTENT_LENGTH)).isEqualTo(MIN_RANGE_SIZE);
+        assertThat(videoRangeSizer.isPlayingLinearly(otherClientId, VIDEO_URL)).isFalse();
+        assertThat(videoRangeSizer.isPlayingLinearly(CLIENT_ID, VIDEO_URL)).isTrue();
+        assertThat(serveRange(videoRangeSizer, rangeStart, CONTENT_LENGTH)).isEqualTo(8 * MIN_RANGE_SIZE);
+    }
+
+    @Test
+    void sharesSourceThroughputBetweenClients() {
+        VideoRangeSizer videoRangeSizer = newVideoRangeSizer();
+        long contentLength = DataSize.ofMegabytes(50).toBytes();
+        long rangeStart = 0;
+
+        videoRangeSizer.recordUpstreamFetch(VIDEO_URL, DataSize.ofMegabytes(8).toBytes(), 1000);
+
+        for (int i = 0; i < 5; i++) {
+            rangeStart += serveRange(videoRangeSizer, "127.0.0.2", rangeStart, contentLength);
+        }
+
+        assertThat(serveRange(videoRangeSizer, "127.0.0.2", rangeStart, contentLength)).isEqualTo(MAX_RANGE_SIZE);
+    }
+}
@@ -0,0 +1,134 @@
+package org.animeatsume.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+    private static final long FAST_CALL_MS = 10;
+    private static final long SLOW_CALL_MS = 5_000;
+
+    private static CircuitBreaker newCircuitBreaker(Duration openDuration, int halfOpenTrialCalls) {
+        return new CircuitBreaker(
+            10,
+            4,
+            0.5,
+            Duration.ofSeconds(1),
+            openDuration,
+            halfOpenTrialCalls
+        );
+    }
+
+    private static void recordCalls(CircuitBreaker circuitBreaker, int numCalls, long latencyMs, boolean success) {
+        for (int i = 0; i < numCalls; i++) {
+            assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+            circuitBreaker.record(latencyMs, success);
+        }
+    }
+
+    @Test
+    void staysClosedUntilMinCallsAreRecorded() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ofMinutes(1), 1);
+
+        recordCalls(circuitBreaker, 3, FAST_CALL_MS, false);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+    }
+
+    @Test
+    void staysClosedWhileFailureRateIsBelowThreshold() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ofMinutes(1), 1);
+
+        recordCalls(circuitBreaker, 3, FAST_CALL_MS, true);
+        recordCalls(circuitBreaker, 2, FAST_CALL_MS, false);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void opensOnceFailureRateReachesThreshold() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ofMinutes(1), 1);
+
+        recordCalls(circuitBreaker, 2, FAST_CALL_MS, true);
+        recordCalls(circuitBreaker, 2, FAST_CALL_MS, false);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void countsSlowCallsAsFailures() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ofMinutes(1), 1);
+
+        recordCalls(circuitBreaker, 4, SLOW_CALL_MS, true);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void ignoresCallsPermittedBeforeItOpened() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ofMinutes(1), 1);
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        recordCalls(circuitBreaker, 4, FAST_CALL_MS, false);
+        circuitBreaker.record(FAST_CALL_MS, true);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void limitsTrialCallsOnceOpenDurationPasses() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ZERO, 2);
+
+        recordCalls(circuitBreaker, 4, FAST_CALL_MS, false);
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void closesOnceAllTrialCallsSucceed() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ZERO, 2);
+
+        recordCalls(circuitBreaker, 4, FAST_CALL_MS, false);
+        recordCalls(circuitBreaker, 1, FAST_CALL_MS, true);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        recordCalls(circuitBreaker, 1, FAST_CALL_MS, true);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        // Failures from before it re-opened are forgotten
+        recordCalls(circuitBreaker, 3, FAST_CALL_MS, false);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void reopensIfATrialCallFails() {
+        CircuitBreaker circuitBreaker = newCircuitBreaker(Duration.ofMillis(50), 2);
+
+        recordCalls(circuitBreaker, 4, FAST_CALL_MS, false);
+
+        sleep(Duration.ofMillis(100));
+
+        recordCalls(circuitBreaker, 1, FAST_CALL_MS, false);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
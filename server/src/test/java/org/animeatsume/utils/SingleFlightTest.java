@@ -0,0 +1,111 @@
+package org.animeatsume.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final CountDownLatch leaderStarted = new CountDownLatch(1);
+    private final CountDownLatch unblockLeader = new CountDownLatch(1);
+    // Not the common pool, which may only have one thread
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private CompletableFuture<String> startLeader(Error failure) {
+        return CompletableFuture.supplyAsync(() -> singleFlight.run("key", () -> {
+            leaderStarted.countDown();
+            await(unblockLeader);
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            return "result";
+        }), executor);
+    }
+
+    @AfterEach
+    void shutDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void sharesTheLeadersResult() throws Exception {
+        AtomicInteger numFollowerRuns = new AtomicInteger();
+        CompletableFuture<String> leader = startLeader(null);
+
+        leaderStarted.await(1, TimeUnit.SECONDS);
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.run("key", () -> {
+            numFollowerRuns.incrementAndGet();
+            return "other result";
+        }), executor);
+
+        // Gives the follower time to start waiting on the leader
+        Thread.sleep(100);
+        unblockLeader.countDown();
+
+        assertThat(leader.get(1, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(follower.get(1, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(numFollowerRuns).hasValue(0);
+    }
+
+    @Test
+    void passesErrorsThrownByTheLeaderToFollowers() throws Exception {
+        CompletableFuture<String> leader = startLeader(new AssertionError("leader failed"));
+
+        leaderStarted.await(1, TimeUnit.SECONDS);
+
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() -> singleFlight.run("key", () -> "other result"), executor);
+
+        Thread.sleep(100);
+        unblockLeader.countDown();
+
+        assertThatThrownBy(() -> leader.get(1, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(AssertionError.class);
+        // Would time out if the follower were left waiting
+        assertThatThrownBy(() -> follower.get(1, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasRootCauseMessage("leader failed");
+    }
+
+    @Test
+    void followersOnlyWaitUntilTheirDeadline() throws Exception {
+        CompletableFuture<String> leader = startLeader(null);
+
+        leaderStarted.await(1, TimeUnit.SECONDS);
+
+        Deadline deadline = Deadline.after(Duration.ofMillis(100));
+
+        assertThatThrownBy(() -> Deadline.runWith(deadline, () -> singleFlight.run("key", () -> "other result")))
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(TimeoutException.class);
+        assertThat(leader).isNotDone();
+
+        unblockLeader.countDown();
+
+        assertThat(leader.get(1, TimeUnit.SECONDS)).isEqualTo("result");
+    }
+}
@@ -0,0 +1,122 @@
+package org.animeatsume.utils.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedCacheTest {
+    private static final Duration TIME_TO_LIVE = Duration.ofMillis(100);
+
+    private static BoundedCache newStaleWhileRevalidateCache(Executor refreshExecutor, AtomicInteger numRefreshes) {
+        CacheSpec spec = new CacheSpec();
+
+        spec.setTimeToLive(TIME_TO_LIVE);
+        spec.setJitter(0);
+        spec.setStaleWhileRevalidate(Duration.ofMinutes(1));
+
+        BoundedCache cache = new BoundedCache("test", spec, null, refreshExecutor);
+
+        cache.setRefresher(key -> "refreshed-" + numRefreshes.incrementAndGet());
+
+        return cache;
+    }
+
+    @Test
+    void doesNotRefreshFreshEntries() {
+        AtomicInteger numRefreshes = new AtomicInteger();
+        BoundedCache cache = newStaleWhileRevalidateCache(Runnable::run, numRefreshes);
+
+        cache.put("key", "value");
+
+        assertThat(cache.get("key").get()).isEqualTo("value");
+        assertThat(numRefreshes.get()).isZero();
+    }
+
+    @Test
+    void servesStaleEntriesWhileRefreshingThem() {
+        AtomicInteger numRefreshes = new AtomicInteger();
+        BoundedCache cache = newStaleWhileRevalidateCache(Runnable::run, numRefreshes);
+
+        cache.put("key", "value");
+        sleep(TIME_TO_LIVE.multipliedBy(2));
+
+        assertThat(cache.get("key").get()).isEqualTo("value");
+        assertThat(cache.get("key").get()).isEqualTo("refreshed-1");
+        assertThat(numRefreshes.get()).isEqualTo(1);
+    }
+
+    @Test
+    void refreshesEachEntryOnceAtATime() {
+        AtomicInteger numRefreshes = new AtomicInteger();
+        List<Runnable> queuedRefreshes = new ArrayList<>();
+        BoundedCache cache = newStaleWhileRevalidateCache(queuedRefreshes::add, numRefreshes);
+
+        cache.put("key", "value");
+        sleep(TIME_TO_LIVE.multipliedBy(2));
+        cache.get("key");
+        cache.get("key");
+
+        assertThat(queuedRefreshes).hasSize(1);
+
+        queuedRefreshes.get(0).run();
+
+        assertThat(cache.get("key").get()).isEqualTo("refreshed-1");
+    }
+
+    @Test
+    void retriesRejectedRefreshesOnNextRead() {
+        AtomicInteger numRefreshes = new AtomicInteger();
+        AtomicInteger numSubmissions = new AtomicInteger();
+        BoundedCache cache = newStaleWhileRevalidateCache(
+            task -> {
+                if (numSubmissions.incrementAndGet() == 1) {
+                    throw new RejectedExecutionException("Queue is full");
+                }
+
+                task.run();
+            },
+            numRefreshes
+        );
+
+        cache.put("key", "value");
+        sleep(TIME_TO_LIVE.multipliedBy(2));
+
+        assertThat(cache.get("key").get()).isEqualTo("value");
+        assertThat(numRefreshes.get()).isZero();
+
+        cache.get("key");
+
+        assertThat(cache.get("key").get()).isEqualTo("refreshed-1");
+    }
+
+    @Test
+    void evictsEntriesOnceTheyveBeenStaleForTooLong() {
+        CacheSpec spec = new CacheSpec();
+
+        spec.setTimeToLive(TIME_TO_LIVE);
+        spec.setJitter(0);
+        spec.setStaleWhileRevalidate(TIME_TO_LIVE);
+
+        BoundedCache cache = new BoundedCache("test", spec, null, Runnable::run);
+
+        cache.put("key", "value");
+        sleep(TIME_TO_LIVE.multipliedBy(3));
+
+        assertThat(cache.get("key")).isNull();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
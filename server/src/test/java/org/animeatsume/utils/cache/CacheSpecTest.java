@@ -0,0 +1,64 @@
+package org.animeatsume.utils.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheSpecTest {
+    // Same as `org.animeatsume.cache.specs.animeTitleSearch`
+    private static CacheSpec newAnimeTitleSearchSpec() {
+        CacheSpec spec = new CacheSpec();
+
+        spec.setTimeToLive(Duration.ofDays(1));
+        spec.setJitter(0.2);
+        spec.setStaleWhileRevalidate(Duration.ofDays(6));
+
+        return spec;
+    }
+
+    @Test
+    void refreshesEntriesOnceTheyreStale() {
+        CacheSpec spec = newAnimeTitleSearchSpec();
+
+        assertThat(spec.getStaleTime()).isEqualTo(Duration.ofDays(6));
+        assertThat(spec.getRefreshWindow()).isEqualTo(Duration.ofDays(6));
+    }
+
+    @Test
+    void onlyJittersTheTimeToLive() {
+        CacheSpec spec = newAnimeTitleSearchSpec();
+        JitteredExpiry expiry = new JitteredExpiry(spec.getTimeToLive(), spec.getJitter(), spec.getStaleTime());
+
+        for (int i = 0; i < 1000; i++) {
+            Duration maxAge = Duration.ofNanos(expiry.expireAfterCreate("key", "value", 0));
+            // When the entry becomes stale, and so is refreshed on its next read
+            Duration refreshAfter = maxAge.minus(spec.getRefreshWindow());
+
+            assertThat(refreshAfter).isBetween(Duration.ofHours(19).plusMinutes(12), Duration.ofHours(28).plusMinutes(48));
+            assertThat(maxAge).isBetween(Duration.ofDays(6).plusHours(19).plusMinutes(12), Duration.ofDays(7).plusHours(4).plusMinutes(48));
+        }
+    }
+
+    @Test
+    void refreshesAheadOfTimeToLive() {
+        CacheSpec spec = new CacheSpec();
+
+        spec.setTimeToLive(Duration.ofHours(1));
+        spec.setRefreshAhead(Duration.ofMinutes(5));
+
+        assertThat(spec.getStaleTime()).isZero();
+        assertThat(spec.getRefreshWindow()).isEqualTo(Duration.ofMinutes(5));
+
+        spec.setStaleWhileRevalidate(Duration.ofMinutes(30));
+
+        assertThat(spec.getRefreshWindow()).isEqualTo(Duration.ofMinutes(35));
+    }
+
+    @Test
+    void doesNotRefreshByDefault() {
+        assertThat(new CacheSpec().getRefreshWindow()).isNull();
+        assertThat(new CacheSpec().getStaleTime()).isZero();
+    }
+}
@@ -0,0 +1,95 @@
+package org.animeatsume.utils.cache;
+
+import org.animeatsume.dao.AnimeAtsumeDao;
+import org.animeatsume.dao.model.CacheEntry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PersistentCacheStoreTest {
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(1);
+
+    private final CountDownLatch unblockWrites = new CountDownLatch(1);
+    private final AnimeAtsumeDao animeAtsumeDao = newBlockingDao(unblockWrites);
+    private final PersistentCacheStore persistentCacheStore = newPersistentCacheStore(animeAtsumeDao, 2);
+
+    private static AnimeAtsumeDao newBlockingDao(CountDownLatch unblockWrites) {
+        AnimeAtsumeDao animeAtsumeDao = mock(AnimeAtsumeDao.class);
+
+        when(animeAtsumeDao.saveCacheEntry(any())).thenAnswer(invocation -> {
+            unblockWrites.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+
+        return animeAtsumeDao;
+    }
+
+    private static PersistentCacheStore newPersistentCacheStore(AnimeAtsumeDao animeAtsumeDao, int writeQueueCapacity) {
+        PersistentCacheStore persistentCacheStore = new PersistentCacheStore(writeQueueCapacity);
+
+        persistentCacheStore.animeAtsumeDao = animeAtsumeDao;
+
+        return persistentCacheStore;
+    }
+
+    private static CacheEntry entryWithKey(String key) {
+        return argThat(cacheEntry -> cacheEntry != null && key.equals(cacheEntry.getCacheKey()));
+    }
+
+    @Test
+    void dropsOldestPendingWritesRatherThanDeletes() {
+        // Occupies the writer, then fills the queue
+        persistentCacheStore.write("cache", "a", "value", TIME_TO_LIVE);
+        verify(animeAtsumeDao, timeout(1000)).saveCacheEntry(entryWithKey("a"));
+        persistentCacheStore.write("cache", "b", "value", TIME_TO_LIVE);
+        persistentCacheStore.write("cache", "c", "value", TIME_TO_LIVE);
+
+        // Each replaces the oldest pending write
+        persistentCacheStore.delete("cache", "b");
+        persistentCacheStore.delete("cache", "c");
+
+        // Dropped since only deletes are pending
+        persistentCacheStore.write("cache", "d", "value", TIME_TO_LIVE);
+
+        unblockWrites.countDown();
+
+        verify(animeAtsumeDao, timeout(1000)).deleteCacheEntry("cache", "b");
+        verify(animeAtsumeDao, timeout(1000)).deleteCacheEntry("cache", "c");
+        verify(animeAtsumeDao, after(200).never()).saveCacheEntry(entryWithKey("b"));
+        verify(animeAtsumeDao, never()).saveCacheEntry(entryWithKey("c"));
+        verify(animeAtsumeDao, never()).saveCacheEntry(entryWithKey("d"));
+    }
+
+    @Test
+    void waitsForRoomToQueueDeletes() throws Exception {
+        persistentCacheStore.write("cache", "a", "value", TIME_TO_LIVE);
+        verify(animeAtsumeDao, timeout(1000)).saveCacheEntry(entryWithKey("a"));
+        persistentCacheStore.delete("cache", "b");
+        persistentCacheStore.clear("other-cache");
+
+        CompletableFuture<Void> queuedDelete = CompletableFuture.runAsync(() -> persistentCacheStore.delete("cache", "c"));
+
+        Thread.sleep(200);
+        assertThat(queuedDelete).isNotDone();
+
+        unblockWrites.countDown();
+
+        queuedDelete.get(1, TimeUnit.SECONDS);
+        verify(animeAtsumeDao, timeout(1000)).deleteCacheEntry("cache", "b");
+        verify(animeAtsumeDao, timeout(1000)).deleteCacheEntries("other-cache");
+        verify(animeAtsumeDao, timeout(1000)).deleteCacheEntry("cache", "c");
+    }
+}
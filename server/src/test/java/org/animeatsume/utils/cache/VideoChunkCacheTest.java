@@ -0,0 +1,119 @@
+package org.animeatsume.utils.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VideoChunkCacheTest {
+    private static final String URL = "https://example.com/video.mp4";
+    private static final int CHUNK_SIZE = 4;
+
+    @TempDir
+    Path directory;
+
+    private VideoChunkCache newVideoChunkCache(int maxMemoryChunks, int maxDiskChunks) {
+        return new VideoChunkCache(
+            DataSize.ofBytes(CHUNK_SIZE),
+            DataSize.ofBytes((long) maxMemoryChunks * CHUNK_SIZE),
+            DataSize.ofBytes((long) maxDiskChunks * CHUNK_SIZE),
+            directory.toString()
+        );
+    }
+
+    private static byte[] chunk(int chunkIndex) {
+        return new byte[] { (byte) chunkIndex, 1, 2, 3 };
+    }
+
+    private long countChunkFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".chunk")).count();
+        }
+    }
+
+    @Test
+    void returnsNullForChunksThatArentCached() {
+        VideoChunkCache videoChunkCache = newVideoChunkCache(2, 2);
+
+        videoChunkCache.put(URL, 0, chunk(0));
+
+        assertThat(videoChunkCache.get(URL, 1)).isNull();
+        assertThat(videoChunkCache.get("https://example.com/other.mp4", 0)).isNull();
+        assertThat(videoChunkCache.contains(URL, 0)).isTrue();
+        assertThat(videoChunkCache.contains(URL, 1)).isFalse();
+    }
+
+    @Test
+    void servesChunksFromMemory() throws IOException {
+        VideoChunkCache videoChunkCache = newVideoChunkCache(2, 2);
+
+        videoChunkCache.put(URL, 0, chunk(0));
+        videoChunkCache.put(URL, 1, chunk(1));
+
+        assertThat(videoChunkCache.get(URL, 0)).isEqualTo(chunk(0));
+        assertThat(videoChunkCache.get(URL, 1)).isEqualTo(chunk(1));
+        assertThat(countChunkFiles()).isZero();
+    }
+
+    @Test
+    void movesLeastRecentlyUsedChunksToDiskOnceMemoryIsFull() throws IOException {
+        VideoChunkCache videoChunkCache = newVideoChunkCache(2, 2);
+
+        videoChunkCache.put(URL, 0, chunk(0));
+        videoChunkCache.put(URL, 1, chunk(1));
+        // Makes chunk 1 the least recently used
+        videoChunkCache.get(URL, 0);
+        videoChunkCache.put(URL, 2, chunk(2));
+
+        assertThat(countChunkFiles()).isEqualTo(1);
+        assertThat(videoChunkCache.get(URL, 1)).isEqualTo(chunk(1));
+        // Reading it promoted it back to memory, which moved chunk 0 to disk in its place
+        assertThat(countChunkFiles()).isEqualTo(1);
+        assertThat(videoChunkCache.get(URL, 0)).isEqualTo(chunk(0));
+    }
+
+    @Test
+    void deletesLeastRecentlyUsedChunksOnceDiskIsFull() throws IOException {
+        VideoChunkCache videoChunkCache = newVideoChunkCache(1, 2);
+
+        for (int chunkIndex = 0; chunkIndex < 4; chunkIndex++) {
+            videoChunkCache.put(URL, chunkIndex, chunk(chunkIndex));
+        }
+
+        assertThat(countChunkFiles()).isEqualTo(2);
+        assertThat(videoChunkCache.get(URL, 0)).isNull();
+        assertThat(videoChunkCache.get(URL, 1)).isEqualTo(chunk(1));
+        assertThat(videoChunkCache.get(URL, 3)).isEqualTo(chunk(3));
+    }
+
+    @Test
+    void dropsEvictedChunksWithoutDiskTier() throws IOException {
+        VideoChunkCache videoChunkCache = newVideoChunkCache(1, 0);
+
+        videoChunkCache.put(URL, 0, chunk(0));
+        videoChunkCache.put(URL, 1, chunk(1));
+
+        assertThat(videoChunkCache.get(URL, 0)).isNull();
+        assertThat(videoChunkCache.get(URL, 1)).isEqualTo(chunk(1));
+        assertThat(countChunkFiles()).isZero();
+    }
+
+    @Test
+    void clearsOnlyItsOwnFilesOnStartup() throws IOException {
+        Path staleChunk = Files.write(directory.resolve("stale-0.chunk"), chunk(0));
+        Path staleTempFile = Files.write(directory.resolve("stale-1123.tmp"), chunk(1));
+        Path otherFile = Files.write(directory.resolve("notes.txt"), chunk(2));
+
+        newVideoChunkCache(1, 1);
+
+        assertThat(staleChunk).doesNotExist();
+        assertThat(staleTempFile).doesNotExist();
+        assertThat(otherFile).exists();
+    }
+}
@@ -0,0 +1,171 @@
+package org.animeatsume.utils.http;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileRangesTest {
+    private static final String FILE_CONTENTS = "0123456789";
+    private static final MediaType CONTENT_TYPE = MediaType.valueOf("video/mp4");
+
+    @TempDir
+    Path directory;
+
+    private File file;
+
+    @BeforeEach
+    void createFile() throws IOException {
+        file = Files.writeString(directory.resolve("video.mp4"), FILE_CONTENTS).toFile();
+    }
+
+    private MockHttpServletResponse serve(String rangeHeader) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/video.mp4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        if (rangeHeader != null) {
+            request.addHeader(HttpHeaders.RANGE, rangeHeader);
+        }
+
+        FileRanges.serve(file, CONTENT_TYPE, request, response);
+
+        return response;
+    }
+
+    private static void assertServedWholeFile(MockHttpServletResponse response) throws IOException {
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        assertThat(response.getContentType()).isEqualTo(CONTENT_TYPE.toString());
+        assertThat(response.getContentLengthLong()).isEqualTo(FILE_CONTENTS.length());
+        assertThat(response.getContentAsString()).isEqualTo(FILE_CONTENTS);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+    }
+
+    private static void assertServedRange(MockHttpServletResponse response, int rangeStart, int rangeEnd) throws IOException {
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_PARTIAL_CONTENT);
+        assertThat(response.getContentType()).isEqualTo(CONTENT_TYPE.toString());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes " + rangeStart + "-" + rangeEnd + "/" + FILE_CONTENTS.length());
+        assertThat(response.getContentAsString()).isEqualTo(FILE_CONTENTS.substring(rangeStart, rangeEnd + 1));
+    }
+
+    private static void assertNotSatisfiable(MockHttpServletResponse response) throws IOException {
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + FILE_CONTENTS.length());
+        assertThat(response.getContentAsString()).isEmpty();
+    }
+
+    @Test
+    void servesWholeFileWithoutRange() throws IOException {
+        MockHttpServletResponse response = serve(null);
+
+        assertServedWholeFile(response);
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNotNull();
+    }
+
+    @Test
+    void servesSingleRange() throws IOException {
+        assertServedRange(serve("bytes=2-5"), 2, 5);
+    }
+
+    @Test
+    void cutsOffRangesEndingPastEndOfFile() throws IOException {
+        assertServedRange(serve("bytes=7-100"), 7, 9);
+        assertServedRange(serve("bytes=7-"), 7, 9);
+    }
+
+    @Test
+    void servesSuffixRanges() throws IOException {
+        assertServedRange(serve("bytes=-3"), 7, 9);
+        assertServedRange(serve("bytes=-100"), 0, 9);
+    }
+
+    @Test
+    void rejectsRangesStartingPastEndOfFile() throws IOException {
+        assertNotSatisfiable(serve("bytes=10-20"));
+        assertNotSatisfiable(serve("bytes=10-"));
+        assertNotSatisfiable(serve("bytes=-0"));
+    }
+
+    @Test
+    void dropsUnsatisfiableRangesIfOthersAreSatisfiable() throws IOException {
+        assertServedRange(serve("bytes=20-30,1-2"), 1, 2);
+    }
+
+    @Test
+    void ignoresMalformedRanges() throws IOException {
+        assertServedWholeFile(serve("bytes=abc"));
+        assertServedWholeFile(serve("bytes=5-2"));
+        assertServedWholeFile(serve("items=0-2"));
+        assertServedWholeFile(serve(""));
+    }
+
+    @Test
+    void servesWholeFileIfIfRangeDoesNotMatch() throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/video.mp4");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"outdated\"");
+
+        FileRanges.serve(file, CONTENT_TYPE, request, response);
+
+        assertServedWholeFile(response);
+    }
+
+    @Test
+    void servesMultipleRangesAsMultipart() throws IOException {
+        MockHttpServletResponse response = serve("bytes=6-7,0-1");
+        String body = response.getContentAsString();
+
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_PARTIAL_CONTENT);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        assertThat(response.getContentLengthLong()).isEqualTo(body.getBytes(StandardCharsets.US_ASCII).length);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+
+        String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+
+        // Parts are in the order they were requested
+        assertThat(body).isEqualTo(
+            "\r\n--" + boundary + "\r\n"
+            + "Content-Type: video/mp4\r\n"
+            + "Content-Range: bytes 6-7/10\r\n"
+            + "\r\n"
+            + "67"
+            + "\r\n--" + boundary + "\r\n"
+            + "Content-Type: video/mp4\r\n"
+            + "Content-Range: bytes 0-1/10\r\n"
+            + "\r\n"
+            + "01"
+            + "\r\n--" + boundary + "--\r\n"
+        );
+    }
+
+    @Test
+    void mergesOverlappingAndAdjacentRanges() throws IOException {
+        assertServedRange(serve("bytes=0-3,2-5"), 0, 5);
+        assertServedRange(serve("bytes=4-5,0-3"), 0, 5);
+        assertServedRange(serve("bytes=1-2,-3,3-6"), 1, 9);
+    }
+
+    @Test
+    void onlyMergesRangesThatTouch() throws IOException {
+        MockHttpServletResponse response = serve("bytes=0-1,1-2,5-6");
+
+        assertThat(response.getContentType()).startsWith("multipart/byteranges");
+        assertThat(response.getContentAsString())
+            .contains("Content-Range: bytes 0-2/10\r\n\r\n012")
+            .contains("Content-Range: bytes 5-6/10\r\n\r\n56");
+    }
+}
@@ -0,0 +1,91 @@
+package org.animeatsume.utils.http;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RequestLimiterTest {
+    private static final long ONE_SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @AfterEach
+    void resetLimits() {
+        RequestLimiter.configure(new HttpClientSpec());
+    }
+
+    @Test
+    void tokenBucketAllowsBurstWithoutWaiting() {
+        RequestLimiter.TokenBucket bucket = new RequestLimiter.TokenBucket(1, 3);
+
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isZero();
+    }
+
+    @Test
+    void tokenBucketRejectsWhenWaitIsLongerThanAllowed() {
+        RequestLimiter.TokenBucket bucket = new RequestLimiter.TokenBucket(1, 1);
+
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isEqualTo(-1);
+    }
+
+    @Test
+    void tokenBucketMakesWaitingRequestsWaitForTheirTokenInOrder() {
+        RequestLimiter.TokenBucket bucket = new RequestLimiter.TokenBucket(1, 1);
+
+        bucket.reserve(0);
+
+        long firstWaitNanos = bucket.reserve(10 * ONE_SECOND_NANOS);
+        long secondWaitNanos = bucket.reserve(10 * ONE_SECOND_NANOS);
+
+        assertThat(firstWaitNanos).isBetween(ONE_SECOND_NANOS / 2, ONE_SECOND_NANOS);
+        // The first waiting request took the next token on credit, so the second one waits for the token after it
+        assertThat(secondWaitNanos).isBetween(firstWaitNanos + ONE_SECOND_NANOS / 2, firstWaitNanos + ONE_SECOND_NANOS);
+    }
+
+    @Test
+    void tokenBucketDoesNotTakeTokenWhenRejecting() {
+        RequestLimiter.TokenBucket bucket = new RequestLimiter.TokenBucket(1, 1);
+
+        bucket.reserve(0);
+        bucket.reserve(0);
+
+        assertThat(bucket.reserve(10 * ONE_SECOND_NANOS)).isLessThanOrEqualTo(ONE_SECOND_NANOS);
+    }
+
+    @Test
+    void acquireWithoutLimitsReturnsNoPermit() {
+        assertThat(RequestLimiter.acquire("example.com")).isSameAs(RequestLimiter.Permit.NONE);
+        assertThat(RequestLimiter.acquire(null)).isSameAs(RequestLimiter.Permit.NONE);
+    }
+
+    @Test
+    void acquireRejectsRequestsOverTheConcurrencyCapUntilAPermitIsReleased() {
+        HttpClientSpec spec = new HttpClientSpec();
+        spec.setMaxConcurrentRequests(1);
+        spec.setLimitWaitTimeout(Duration.ofMillis(50));
+        RequestLimiter.configure(spec);
+
+        RequestLimiter.Permit permit = RequestLimiter.acquire("example.com");
+
+        assertThatThrownBy(() -> RequestLimiter.acquire("EXAMPLE.com")).isInstanceOf(ResourceAccessException.class);
+        // Other hosts have their own limits
+        RequestLimiter.acquire("example.org").release();
+
+        permit.release();
+        // Releasing twice mustn't free up an extra slot
+        permit.release();
+
+        RequestLimiter.Permit nextPermit = RequestLimiter.acquire("example.com");
+
+        assertThatThrownBy(() -> RequestLimiter.acquire("example.com")).isInstanceOf(ResourceAccessException.class);
+
+        nextPermit.release();
+    }
+}
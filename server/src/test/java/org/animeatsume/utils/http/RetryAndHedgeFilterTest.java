@@ -0,0 +1,113 @@
+package org.animeatsume.utils.http;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryAndHedgeFilterTest {
+    private static final ClientRequest REQUEST = ClientRequest.create(HttpMethod.GET, URI.create("https://example.com/anime")).build();
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private static HttpClientSpec newHttpClientSpec(int maxRetries, boolean hedgeRequests) {
+        HttpClientSpec spec = new HttpClientSpec();
+
+        spec.setMaxRetries(maxRetries);
+        spec.setHedgeRequests(hedgeRequests);
+        spec.setRetryBackoff(Duration.ofMillis(1));
+        spec.setMaxRetryBackoff(Duration.ofMillis(5));
+        spec.setMinHedgeDelay(Duration.ofMillis(1));
+
+        return spec;
+    }
+
+    // Responds with the current status, counting each exchange
+    private static ExchangeFunction respondWith(AtomicReference<HttpStatus> status, AtomicInteger numExchanges) {
+        return request -> Mono.fromSupplier(() -> {
+            numExchanges.incrementAndGet();
+
+            return ClientResponse.create(status.get()).build();
+        });
+    }
+
+    // Hedging only starts once enough latencies have been recorded for the host
+    private static void recordLatencies(RetryAndHedgeFilter filter, ExchangeFunction next) {
+        for (int i = 0; i < 20; i++) {
+            StepVerifier.create(filter.filter(REQUEST, next))
+                .expectNextCount(1)
+                .expectComplete()
+                .verify(TIMEOUT);
+        }
+    }
+
+    @Test
+    void retriesServerErrors() {
+        AtomicReference<HttpStatus> status = new AtomicReference<>(HttpStatus.BAD_GATEWAY);
+        AtomicInteger numExchanges = new AtomicInteger();
+        RetryAndHedgeFilter filter = new RetryAndHedgeFilter(newHttpClientSpec(2, false));
+
+        StepVerifier.create(filter.filter(REQUEST, respondWith(status, numExchanges)))
+            .expectErrorSatisfies(error -> assertThat(error)
+                .isInstanceOf(WebClientResponseException.class)
+                .extracting(e -> ((WebClientResponseException) e).getStatusCode().value())
+                .isEqualTo(HttpStatus.BAD_GATEWAY.value())
+            )
+            .verify(TIMEOUT);
+
+        assertThat(numExchanges.get()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesHedgedRequestsIfBothAttemptsFail() {
+        AtomicReference<HttpStatus> status = new AtomicReference<>(HttpStatus.OK);
+        AtomicInteger numExchanges = new AtomicInteger();
+        ExchangeFunction next = respondWith(status, numExchanges);
+        RetryAndHedgeFilter filter = new RetryAndHedgeFilter(newHttpClientSpec(2, true));
+
+        recordLatencies(filter, next);
+        status.set(HttpStatus.SERVICE_UNAVAILABLE);
+        numExchanges.set(0);
+
+        StepVerifier.create(filter.filter(REQUEST, next))
+            .expectErrorSatisfies(error -> assertThat(error)
+                .isInstanceOf(WebClientResponseException.class)
+                .extracting(e -> ((WebClientResponseException) e).getStatusCode().value())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value())
+            )
+            .verify(TIMEOUT);
+
+        // The first attempt fails right away, so each try (the original and 2 retries) also sends its hedged attempt
+        assertThat(numExchanges.get()).isEqualTo(6);
+    }
+
+    @Test
+    void usesTheOtherAttemptIfOneFails() {
+        AtomicReference<HttpStatus> status = new AtomicReference<>(HttpStatus.OK);
+        AtomicInteger numExchanges = new AtomicInteger();
+        RetryAndHedgeFilter filter = new RetryAndHedgeFilter(newHttpClientSpec(0, true));
+
+        recordLatencies(filter, respondWith(status, numExchanges));
+
+        AtomicInteger numAttempts = new AtomicInteger();
+        ExchangeFunction firstAttemptFails = request -> Mono.fromSupplier(() -> ClientResponse.create(
+            numAttempts.incrementAndGet() == 1 ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK
+        ).build());
+
+        StepVerifier.create(filter.filter(REQUEST, firstAttemptFails))
+            .assertNext(response -> assertThat(response.statusCode().value()).isEqualTo(HttpStatus.OK.value()))
+            .expectComplete()
+            .verify(TIMEOUT);
+    }
+}